@@ -3,8 +3,22 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.text.*;
 import java.awt.*;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
 
 public class JavaCrosswordGenerator {
     private static final int ROWS = 18;
@@ -13,10 +27,10 @@ public class JavaCrosswordGenerator {
     private char[][] solution = new char[ROWS][COLS];
     private final Trie trie = new Trie();
     private final List<String> words = new ArrayList<>();
-    private final Map<String, String> clues = new HashMap<>();
+    private final ClueStore clues = new ClueStore();
     
     
-    private final JFrame frame = new JFrame("DSA Crossword Generator");
+    private JFrame frame; // Created by buildUI, so the grid can also be built headless
     private final JPanel gridPanel = new JPanel(new GridLayout(ROWS, COLS));
     private final JPanel coordinateGridPanel = new JPanel(new BorderLayout());
     private final JTextArea clueArea = new JTextArea();
@@ -25,6 +39,11 @@ public class JavaCrosswordGenerator {
     private int score = 0;
 
     private final List<Placement> placed = new ArrayList<>();
+    private static final String CATALOG_FILE = "levels.catalog";
+    private static final String CORPUS_FILE = "generator.corpus";
+    private static final int LEVEL_PAGE_SIZE = 20;
+    private LevelCatalog levelCatalog; // Opened on first use
+    private int currentLevelId = -1;
     private Placement currentTypingWord = null;
     
     // User action undo/redo
@@ -32,49 +51,124 @@ public class JavaCrosswordGenerator {
     private final Deque<UserAction> userRedoStack = new ArrayDeque<>();
     private boolean isUndoRedoAction = false; // Flag to prevent recording during undo/redo
 
+    // Session persistence
+    private static final int SESSION_MAGIC = 0x43575353; // "CWSS"
+    private static final byte SESSION_VERSION = 1;
+    private static final int AUTOSAVE_DELAY_MS = 750;
+
+    // Generator instrumentation: -Dcrossword.stats=true, read once at class init. javac still emits
+    // every probe; disabled ones cost nothing only because the JIT folds this static final to false.
+    private static final boolean STATS_ENABLED = Boolean.getBoolean("crossword.stats");
+    private static final Path AUTOSAVE_PATH =
+        Paths.get(System.getProperty("user.home"), ".dsa-crossword", "autosave.cws");
+    private final ExecutorService autosaveExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "crossword-autosave");
+        t.setDaemon(true);
+        return t;
+    });
+    private final javax.swing.Timer autosaveTimer = new javax.swing.Timer(AUTOSAVE_DELAY_MS, _ -> autosave());
+    private boolean autosaveEnabled = true; // Off for the typing harness
+
+    // Background generation and prefetching
+    private static final int GENERATED_WORD_COUNT = 8;
+    private static final long OPTIMIZE_BUDGET_MS = 250;
+    private final ExecutorService generationExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "crossword-generator");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1); // Keep the EDT responsive
+        return t;
+    });
+    private final JButton generateBtn = new JButton("Generate");
+    private final JButton cancelGenerationBtn = new JButton("Cancel");
+    private final JProgressBar generationProgress = new JProgressBar();
+    private final JLabel generationStatus = new JLabel();
+    private GenerationWorker generationWorker;
+    private int nextGenerationSeed = 1;
+    private Future<Generator> prefetchedGeneration;
+    private Generator prefetchedGenerator; // The search behind prefetchedGeneration
+    private int prefetchedSeed;
+    private Future<List<Placement>> prefetchedLevel;
+    private int prefetchedLevelId;
+
     public static void main(String[] args) {
+        if (STATS_ENABLED) GeneratorStats.install();
+        if (args.length > 0 && args[0].equals("--validate-catalog")) {
+            System.exit(validateCatalog(Paths.get(args.length > 1 ? args[1] : CATALOG_FILE)));
+        }
+        if (args.length > 0 && args[0].equals("--typing-stress")) {
+            System.exit(typingStress(args.length > 1 ? Paths.get(args[1]) : null));
+        }
+        if (args.length > 0 && (args[0].equals("--replay-corpus") || args[0].equals("--record-corpus"))) {
+            System.exit(replayCorpus(Paths.get(args.length > 1 ? args[1] : CORPUS_FILE),
+                args[0].equals("--record-corpus")));
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            try {
+                new PuzzleService().start(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Could not start puzzle service: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             JavaCrosswordGenerator app = new JavaCrosswordGenerator();
             app.setupDictionaryAndClues();
             app.buildUI();
             app.loadDefaultCrossword();
+            app.restoreAutosave();
             app.frame.setVisible(true);
         });
     }
 
     private void setupDictionaryAndClues() {
-        putWord("QUEUE", "A linear data structure where elements are processed in First In, First Out (FIFO) order");
-        putWord("BUCKETSORT", "A sorting algorithm that distributes elements into groups (or \"bins\") before sorting them individually");
-        putWord("SHELLSORT", "An in-place sorting algorithm that generalizes insertion sort by comparing elements separated by a gap");
-        putWord("ARRAY", "A fixed-size collection of elements stored in contiguous memory locations");
-        putWord("LINKEDLIST", "A linear data structure where each element (node) contains a reference to the next node");
-        putWord("ALGORITHM", "A step-by-step procedure or formula for solving a problem");
-        putWord("BUBBLESORT", "A simple sorting algorithm that repeatedly swaps adjacent elements if they are in the wrong order");
-        putWord("STACK", "A linear data structure that follows the Last In, First Out (LIFO) principle");
-        putWord("TREE", "A hierarchical data structure with nodes connected by edges");
-        putWord("HASH", "A data structure that maps keys to values for efficient lookup");
-        putWord("GRAPH", "A non-linear data structure consisting of vertices and edges");
-        putWord("HEAP", "A complete binary tree that satisfies the heap property");
-        putWord("SEARCH", "Algorithm to find elements in a data structure");
-        putWord("SORT", "Algorithm to order elements in a specific sequence");
-        putWord("LIST", "A linear collection of elements");
-        putWord("BINARY", "Base-2 number system or tree with two children");
-        putWord("BACKTRACK", "Algorithm technique that tries solutions and reverts if unsuccessful");
-        putWord("TRIE", "A tree-like data structure for storing strings with common prefixes");
-        putWord("BUBBLE", "Simple sorting algorithm that repeatedly swaps adjacent elements");
-        putWord("ALGORITHM", "A step-by-step procedure for solving a problem");
-        putWord("QUICKSORT", "Efficient sorting algorithm using divide and conquer");
-        putWord("MERGESORT", "Stable sorting algorithm using divide and conquer");
-        putWord("HEAPSORT", "Sorting algorithm using heap data structure");
-        putWord("BUCKETSORT", "Sorting algorithm that distributes elements into buckets");
-        putWord("SHELLSORT", "In-place sorting algorithm with gap-based comparisons");
-
+        addDefaultWords(this::putWord);
+        String clueDatabase = System.getProperty("crossword.clues");
+        if (clueDatabase != null) {
+            try {
+                clues.index(Paths.get(clueDatabase));
+                Set<String> known = new LinkedHashSet<>(words);
+                for (String w : clues.words()) {
+                    if (w.length() <= Math.max(ROWS, COLS) && known.add(w)) words.add(w);
+                }
+            } catch (IOException e) {
+                System.err.println("Could not index clue database: " + e.getMessage());
+            }
+        }
         for (String w : words) trie.insert(w);
     }
 
+    // Built-in DSA vocabulary, shared by the Swing app and the puzzle service
+    private static void addDefaultWords(BiConsumer<String, String> putWord) {
+        putWord.accept("QUEUE", "A linear data structure where elements are processed in First In, First Out (FIFO) order");
+        putWord.accept("BUCKETSORT", "A sorting algorithm that distributes elements into groups (or \"bins\") before sorting them individually");
+        putWord.accept("SHELLSORT", "An in-place sorting algorithm that generalizes insertion sort by comparing elements separated by a gap");
+        putWord.accept("ARRAY", "A fixed-size collection of elements stored in contiguous memory locations");
+        putWord.accept("LINKEDLIST", "A linear data structure where each element (node) contains a reference to the next node");
+        putWord.accept("ALGORITHM", "A step-by-step procedure or formula for solving a problem");
+        putWord.accept("BUBBLESORT", "A simple sorting algorithm that repeatedly swaps adjacent elements if they are in the wrong order");
+        putWord.accept("STACK", "A linear data structure that follows the Last In, First Out (LIFO) principle");
+        putWord.accept("TREE", "A hierarchical data structure with nodes connected by edges");
+        putWord.accept("HASH", "A data structure that maps keys to values for efficient lookup");
+        putWord.accept("GRAPH", "A non-linear data structure consisting of vertices and edges");
+        putWord.accept("HEAP", "A complete binary tree that satisfies the heap property");
+        putWord.accept("SEARCH", "Algorithm to find elements in a data structure");
+        putWord.accept("SORT", "Algorithm to order elements in a specific sequence");
+        putWord.accept("LIST", "A linear collection of elements");
+        putWord.accept("BINARY", "Base-2 number system or tree with two children");
+        putWord.accept("BACKTRACK", "Algorithm technique that tries solutions and reverts if unsuccessful");
+        putWord.accept("TRIE", "A tree-like data structure for storing strings with common prefixes");
+        putWord.accept("BUBBLE", "Simple sorting algorithm that repeatedly swaps adjacent elements");
+        putWord.accept("ALGORITHM", "A step-by-step procedure for solving a problem");
+        putWord.accept("QUICKSORT", "Efficient sorting algorithm using divide and conquer");
+        putWord.accept("MERGESORT", "Stable sorting algorithm using divide and conquer");
+        putWord.accept("HEAPSORT", "Sorting algorithm using heap data structure");
+        putWord.accept("BUCKETSORT", "Sorting algorithm that distributes elements into buckets");
+        putWord.accept("SHELLSORT", "In-place sorting algorithm with gap-based comparisons");
+    }
+
     private void putWord(String w, String clue) {
-        words.add(w.toUpperCase());
-        clues.put(w.toUpperCase(), clue);
+        if (clues.add(w.toUpperCase(), clue)) words.add(w.toUpperCase());
     }
 
     private void loadDefaultCrossword() {
@@ -83,28 +177,22 @@ public class JavaCrosswordGenerator {
     }
     
     private void loadLevel(int levelNumber) {
+        List<Placement> layout = takePrefetchedLevel(levelNumber);
+        try {
+            if (layout == null) layout = catalog().load(levelNumber);
+        } catch (IOException e) {
+            layout = null;
+        }
+        if (layout == null) {
+            JOptionPane.showMessageDialog(frame, "Level " + levelNumber + " not available!");
+            return;
+        }
+
         clearGrid();
         placed.clear();
         currentTypingWord = null;
-        
-        // Hardcoded levels with proper intersections
-        switch (levelNumber) {
-            case 1:
-                loadLevel1();
-                break;
-            case 2:
-                loadLevel2();
-                break;
-            case 3:
-                loadLevel3();
-                break;
-            case 4:
-                loadLevel4();
-                break;
-            default:
-                JOptionPane.showMessageDialog(frame, "Level " + levelNumber + " not available!");
-                return;
-        }
+        placed.addAll(layout);
+        currentLevelId = levelNumber;
         
         for (Placement p : placed) {
             applyPlacementToSolution(p);
@@ -114,59 +202,34 @@ public class JavaCrosswordGenerator {
         updateClueArea();
         computeScoreFromSolution();
         frame.setTitle("DSA Crossword - Level " + levelNumber);
-    }
-    
-    private void loadLevel1() {
-        // Level 1: Easy - Basic Data Structures
-        // STACK (across) intersects with TREE (down) at 'T'
-        // ARRAY (across) intersects with TREE (down) at 'R'
-        placed.add(new Placement("STACK", 5, 5, Direction.DOWN));
-        placed.add(new Placement("BINARY", 2, 9, Direction.DOWN));
-        placed.add(new Placement("ARRAY", 7, 5, Direction.ACROSS));
-        placed.add(new Placement("TREE", 6, 7   , Direction.DOWN));
-    }
-    
-    private void loadLevel2() {
-        // Level 2: Medium - Algorithms
-        // HASH (across) intersects with HEAP (down) at 'H'
-        // SEARCH (across) intersects with HEAP (down) at 'E'
-        placed.add(new Placement("HASH", 4, 6, Direction.ACROSS));
-        placed.add(new Placement("HEAP", 4, 6, Direction.DOWN));
-        placed.add(new Placement("SEARCH", 6, 4, Direction.ACROSS));
-        placed.add(new Placement("SORT", 6, 4, Direction.DOWN));
-        placed.add(new Placement("LIST", 9, 1, Direction.ACROSS));
-    }
-    
-    private void loadLevel3() {
-        // Level 3: Hard - Advanced Data Structures
-        // BINARY (across) intersects with BACKTRACK (down) at 'B'
-        // GRAPH (across) intersects with BACKTRACK (down) at 'A'
-        placed.add(new Placement("BINARY", 9, 6, Direction.ACROSS));
-        placed.add(new Placement("BACKTRACK", 3, 9, Direction.DOWN));
-        placed.add(new Placement("GRAPH", 1, 10, Direction.ACROSS));
-        placed.add(new Placement("TRIE", 0, 11, Direction.DOWN));
-        placed.add(new Placement("QUEUE", 0, 7, Direction.DOWN));
-        placed.add(new Placement("BUBBLE", 3, 6, Direction.ACROSS));
-    }
-    
-    private void loadLevel4() {
-        // Level 4: Expert - Complex Algorithms
-        // ALGORITHM (across) intersects with BACKTRACK (down) at 'A'
-        // QUICKSORT (across) intersects with BACKTRACK (down) at 'K'
-        placed.add(new Placement("ALGORITHM", 2, 8, Direction.DOWN));
-        placed.add(new Placement("BACKTRACK", 2, 7, Direction.ACROSS));
-        placed.add(new Placement("QUICKSORT", 5, 2, Direction.ACROSS));
-        placed.add(new Placement("MERGESORT", 8, 0, Direction.ACROSS));
-        placed.add(new Placement("HEAPSORT", 7, 1, Direction.DOWN));
-        placed.add(new Placement("BUCKETSORT", 16, 0, Direction.ACROSS));
-        placed.add(new Placement("SHELLSORT", 8, 5, Direction.DOWN));
+        scheduleAutosave();
+        prefetchLevel(levelNumber);
     }
 
     private void buildUI() {
+        frame = new JFrame("DSA Crossword Generator");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(1400, 1000);
         frame.setResizable(false); // Make GUI fixed size
         frame.setLayout(new BorderLayout());
+        frame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                // Flush synchronously; the JVM exits right after this listener returns.
+                // Let any background write finish first so it cannot land after this one.
+                autosaveTimer.stop();
+                autosaveExecutor.shutdown();
+                try {
+                    autosaveExecutor.awaitTermination(2, java.util.concurrent.TimeUnit.SECONDS);
+                    writeSession(captureSession(), AUTOSAVE_PATH);
+                } catch (IOException ex) {
+                    System.err.println("Autosave failed: " + ex.getMessage());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        autosaveTimer.setRepeats(false);
 
         gridPanel.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
         rebuildGridUI();
@@ -178,17 +241,20 @@ public class JavaCrosswordGenerator {
         JScrollPane clueScroll = new JScrollPane(clueArea);
         clueScroll.setPreferredSize(new Dimension(400, 700));
 
-        JPanel topButtons = new JPanel(new GridLayout(5, 2, 6, 6));
+        JPanel topButtons = new JPanel(new GridLayout(7, 2, 6, 6));
         JButton checkBtn = new JButton("Check");
         JButton revealBtn = new JButton("Reveal");
         JButton hintBtn = new JButton("Hint");
         JButton resetBtn = new JButton("Reset");
-        JButton level1Btn = new JButton("Level 1 (Easy)");
-        JButton level2Btn = new JButton("Level 2 (Medium)");
-        JButton level3Btn = new JButton("Level 3 (Hard)");
-        JButton level4Btn = new JButton("Level 4 (Expert)");
+        JButton prevLevelBtn = new JButton("Previous Level");
+        JButton nextLevelBtn = new JButton("Next Level");
+        JButton levelsBtn = new JButton("Levels...");
         JButton undoBtn = new JButton("Undo (Ctrl+Z)");
         JButton redoBtn = new JButton("Redo (Ctrl+Y)");
+        JButton saveBtn = new JButton("Save Session");
+        JButton loadBtn = new JButton("Load Session");
+        JButton importBtn = new JButton("Import Puzzle");
+        JButton exportBtn = new JButton("Export Puzzle");
 
         checkBtn.addActionListener(_ -> checkAllWords());
         revealBtn.addActionListener(_ -> {
@@ -206,29 +272,44 @@ public class JavaCrosswordGenerator {
                 }
             }
             resetGameState();
+            scheduleAutosave();
         });
         
-        level1Btn.addActionListener(_ -> loadLevel(1));
-        level2Btn.addActionListener(_ -> loadLevel(2));
-        level3Btn.addActionListener(_ -> loadLevel(3));
-        level4Btn.addActionListener(_ -> loadLevel(4));
+        prevLevelBtn.addActionListener(_ -> loadAdjacentLevel(-1));
+        nextLevelBtn.addActionListener(_ -> loadAdjacentLevel(1));
+        levelsBtn.addActionListener(_ -> showLevelBrowser());
+        generateBtn.addActionListener(_ -> startGeneration());
+        cancelGenerationBtn.addActionListener(_ -> cancelGeneration());
         
         undoBtn.addActionListener(_ -> undoLastAction());
         redoBtn.addActionListener(_ -> redoLastAction());
+        saveBtn.addActionListener(_ -> saveSessionAs());
+        loadBtn.addActionListener(_ -> loadSessionFrom());
+        importBtn.addActionListener(_ -> importPuzzle());
+        exportBtn.addActionListener(_ -> exportPuzzle());
 
         topButtons.add(checkBtn);
         topButtons.add(revealBtn);
         topButtons.add(hintBtn);
         topButtons.add(resetBtn);
-        topButtons.add(level1Btn);
-        topButtons.add(level2Btn);
-        topButtons.add(level3Btn);
-        topButtons.add(level4Btn);
+        topButtons.add(prevLevelBtn);
+        topButtons.add(nextLevelBtn);
+        topButtons.add(levelsBtn);
+        topButtons.add(generateBtn);
         topButtons.add(undoBtn);
         topButtons.add(redoBtn);
+        topButtons.add(saveBtn);
+        topButtons.add(loadBtn);
+        topButtons.add(importBtn);
+        topButtons.add(exportBtn);
 
         JPanel scorePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         scorePanel.add(scoreLabel);
+        scorePanel.add(generationProgress);
+        scorePanel.add(cancelGenerationBtn);
+        scorePanel.add(generationStatus);
+        generationProgress.setVisible(false);
+        cancelGenerationBtn.setVisible(false);
 
         rightPanel.add(topButtons, BorderLayout.NORTH);
         rightPanel.add(clueScroll, BorderLayout.CENTER);
@@ -262,6 +343,19 @@ public class JavaCrosswordGenerator {
         });
     }
 
+    private static final String[] LETTERS = new String[26];
+    static {
+        for (int i = 0; i < LETTERS.length; i++) LETTERS[i] = String.valueOf((char) ('A' + i));
+    }
+
+    // The text as one upper-case letter A-Z, or null. Shared strings, no regex.
+    private static String asLetter(String text) {
+        if (text.length() != 1) return null;
+        char ch = text.charAt(0);
+        if (ch >= 'a' && ch <= 'z') ch -= 'a' - 'A';
+        return (ch >= 'A' && ch <= 'Z') ? LETTERS[ch - 'A'] : null;
+    }
+
     private void rebuildGridUI() {
         coordinateGridPanel.removeAll();
         
@@ -292,48 +386,62 @@ public class JavaCrosswordGenerator {
                 final int currentRow = r;
                 final int currentCol = c;
                 
-                // Document listener to track changes for undo/redo
+                // Document listener to track changes for undo/redo. Reads the cell through a
+                // reusable Segment rather than getText(), so a keystroke allocates nothing here.
                 tf.getDocument().addDocumentListener(new DocumentListener() {
-                    private String oldValue = "";
+                    private final Segment segment = new Segment();
+                    private char oldChar = ' ';
+
+                    {
+                        segment.setPartialReturn(true);
+                    }
                     
                     @Override
                     public void insertUpdate(DocumentEvent e) {
-                        handleChange();
+                        handleChange(e.getDocument());
                     }
                     
                     @Override
                     public void removeUpdate(DocumentEvent e) {
-                        handleChange();
+                        handleChange(e.getDocument());
                     }
                     
                     @Override
                     public void changedUpdate(DocumentEvent e) {
-                        handleChange();
+                        handleChange(e.getDocument());
                     }
                     
-                    private void handleChange() {
-                        if (!isUndoRedoAction && tf.isEditable()) {
-                            String newValue = tf.getText();
-                            char oldChar = oldValue.isEmpty() ? ' ' : oldValue.charAt(0);
-                            char newChar = newValue.isEmpty() ? ' ' : newValue.charAt(0);
-                            
-                            if (oldChar != newChar) {
-                                recordUserAction(currentRow, currentCol, oldChar, newChar);
-                                oldValue = newValue;
+                    private void handleChange(Document doc) {
+                        char newChar = ' ';
+                        if (doc.getLength() > 0) {
+                            try {
+                                doc.getText(0, 1, segment);
+                                newChar = segment.first();
+                            } catch (BadLocationException e) {
+                                return;
                             }
                         }
+                        // Track programmatic changes too, so the next user edit records the right old letter
+                        if (oldChar != newChar && !isUndoRedoAction && tf.isEditable()) {
+                            recordUserAction(currentRow, currentCol, oldChar, newChar);
+                        }
+                        oldChar = newChar;
                     }
                 });
                 
-                // Input filter
+                // Input filter. A typed letter also moves the cursor on, straight from here rather
+                // than from a KeyListener plus invokeLater; it moves even over a filled cell.
                 ((AbstractDocument) tf.getDocument()).setDocumentFilter(new DocumentFilter() {
                     @Override
                     public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs)
                             throws BadLocationException {
                         if (text == null) return;
-                        text = text.toUpperCase();
-                        if (text.matches("[A-Z]") && (fb.getDocument().getLength() + text.length() - length) <= 1) {
-                            super.replace(fb, offset, length, text, attrs);
+                        String letter = asLetter(text);
+                        if (letter != null) {
+                            if (fb.getDocument().getLength() - length < 1) {
+                                super.replace(fb, offset, length, letter, attrs);
+                            }
+                            if (!isUndoRedoAction) navigateToNextCell(currentRow, currentCol);
                         } else if (text.isEmpty()) {
                             super.replace(fb, offset, length, text, attrs);
                         }
@@ -343,9 +451,9 @@ public class JavaCrosswordGenerator {
                     public void insertString(FilterBypass fb, int offset, String string, AttributeSet attr)
                             throws BadLocationException {
                         if (string == null) return;
-                        string = string.toUpperCase();
-                        if (string.matches("[A-Z]") && (fb.getDocument().getLength() + string.length()) <= 1) {
-                            super.insertString(fb, offset, string, attr);
+                        String letter = asLetter(string);
+                        if (letter != null && fb.getDocument().getLength() < 1) {
+                            super.insertString(fb, offset, letter, attr);
                         }
                     }
                 });
@@ -385,22 +493,12 @@ public class JavaCrosswordGenerator {
                         } else if (e.getKeyCode() == java.awt.event.KeyEvent.VK_BACK_SPACE) {
                             // Handle backspace - move to previous cell after deleting
                             SwingUtilities.invokeLater(() -> {
-                                if (tf.getText().isEmpty()) {
+                                if (tf.getDocument().getLength() == 0) {
                                     navigateToPreviousCell(currentRow, currentCol);
                                 }
                             });
                         }
                     }
-                    
-                    @Override
-                    public void keyTyped(java.awt.event.KeyEvent e) {
-                        if (e.getKeyChar() >= 'A' && e.getKeyChar() <= 'Z' || 
-                            e.getKeyChar() >= 'a' && e.getKeyChar() <= 'z') {
-                            SwingUtilities.invokeLater(() -> {
-                                navigateToNextCell(currentRow, currentCol);
-                            });
-                        }
-                    }
                 });
                 
                 cellFields[r][c] = tf;
@@ -525,7 +623,7 @@ public class JavaCrosswordGenerator {
             for (int i = 0; i < acrossWords.size(); i++) {
                 Placement p = acrossWords.get(i);
                 sb.append(String.format("%d. [%d,%d] %s\n", i+1, p.row, p.col, 
-                    clues.getOrDefault(p.word, "No clue")));
+                    clues.primary(p.word, "No clue")));
             }
             sb.append("\n");
         }
@@ -535,7 +633,7 @@ public class JavaCrosswordGenerator {
             for (int i = 0; i < downWords.size(); i++) {
                 Placement p = downWords.get(i);
                 sb.append(String.format("%d. [%d,%d] %s\n", i+1, p.row, p.col,
-                    clues.getOrDefault(p.word, "No clue")));
+                    clues.primary(p.word, "No clue")));
             }
         }
         
@@ -637,6 +735,8 @@ public class JavaCrosswordGenerator {
             } else {
                 hintText.append(p.word.length()).append(" letters");
             }
+            List<String> wordClues = clues.cluesFor(p.word);
+            if (wordClues.size() > 1) hintText.append(" - also clued as: ").append(wordClues.get(1));
             hintText.append("\n");
         }
         
@@ -699,183 +799,233 @@ public class JavaCrosswordGenerator {
         }
     }
 
-    // CONSTRAINT SATISFACTION
-    private boolean canPlaceWord(String word, int row, int col, Direction dir) {
-        if (dir == Direction.ACROSS) {
-            if (col + word.length() > COLS) return false;
-            if (col > 0 && solution[row][col-1] != '#') return false; // Check left
-            if (col + word.length() < COLS && solution[row][col + word.length()] != '#') return false; // Check right
-        } else {
-            if (row + word.length() > ROWS) return false;
-            if (row > 0 && solution[row-1][col] != '#') return false; // Check above
-            if (row + word.length() < ROWS && solution[row + word.length()][col] != '#') return false; // Check below
-        }
-        
-        int intersections = 0;
-        for (int i = 0; i < word.length(); i++) {
-            int r = (dir == Direction.ACROSS) ? row : row + i;
-            int c = (dir == Direction.ACROSS) ? col + i : col;
-            
-            char existing = solution[r][c];
-            if (existing != '#') {
-                if (existing != word.charAt(i)) return false;
-                intersections++;
-            }
-            
-            // Check perpendicular conflicts
-            if (dir == Direction.ACROSS) {
-                if (r > 0 && solution[r-1][c] != '#' && existing == '#') return false;
-                if (r < ROWS-1 && solution[r+1][c] != '#' && existing == '#') return false;
-            } else {
-                if (c > 0 && solution[r][c-1] != '#' && existing == '#') return false;
-                if (c < COLS-1 && solution[r][c+1] != '#' && existing == '#') return false;
-            }
-        }
-        
-        return placed.isEmpty() || intersections > 0;
+    // GENERATION
+    public boolean generatePuzzleBacktrack(List<String> wordsToPlace) {
+        Generator gen = new Generator();
+        boolean ok = gen.generateBacktrack(wordsToPlace);
+        adoptLayout(gen);
+        return ok;
     }
-    
-    private List<Position> findValidPlacements(String word) {
-        List<Position> positions = new ArrayList<>();
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                for (Direction dir : Direction.values()) {
-                    if (canPlaceWord(word, r, c, dir)) {
-                        int score = calculatePlacementScore(word, r, c, dir);
-                        positions.add(new Position(r, c, dir, score));
-                    }
-                }
-            }
-        }
-        positions.sort((a, b) -> Integer.compare(b.score, a.score));
-        return positions;
+
+    public boolean generateRandomPuzzle(List<String> wordsToPlace, int seed) {
+        Generator gen = new Generator();
+        boolean ok = gen.generateRandom(wordsToPlace, seed);
+        adoptLayout(gen);
+        return ok;
     }
-    
-    private void removeWordFromGrid(Placement p) {
-        for (int i = 0; i < p.word.length(); i++) {
-            int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
-            int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
-            
-            boolean usedByOther = false;
-            for (Placement other : placed) {
-                if (other != p && other.coversCell(r, c)) {
-                    usedByOther = true;
-                    break;
-                }
-            }
-            if (!usedByOther) {
-                solution[r][c] = '#';
-            }
-        }
+
+    // Rotationally symmetric layout with at least targetDensity fill. The search is a heuristic
+    // (see Generator.generateSymmetric): false means none was found, not that none exists.
+    public boolean generateSymmetricPuzzle(List<String> wordsToPlace, double targetDensity) {
+        Generator gen = new Generator();
+        boolean ok = gen.generateSymmetric(wordsToPlace, targetDensity);
+        adoptLayout(gen);
+        return ok;
     }
 
-    // BACKTRACKING
-    public boolean generatePuzzleBacktrack(List<String> wordsToPlace) {
+    // Generates, then spends up to optimizeMillis improving the layout in place
+    public boolean generateRandomPuzzle(List<String> wordsToPlace, int seed, long optimizeMillis) {
+        Generator gen = new Generator();
+        boolean ok = gen.generateRandom(wordsToPlace, seed);
+        if (ok) gen.optimize(new Random(seed), optimizeMillis * 1_000_000L, Integer.MAX_VALUE);
+        adoptLayout(gen);
+        return ok;
+    }
+
+    // Places the best maxWords-sized interlocking subset (by word length) within the budget.
+    // Returns the words that were left out.
+    public List<String> generateMaxSubsetPuzzle(List<String> wordsToPlace, int maxWords, long budgetMillis, int seed) {
+        Generator gen = new Generator();
+        SubsetResult result = gen.generateMaxSubset(wordsToPlace, String::length, maxWords,
+            budgetMillis * 1_000_000L, new Random(seed));
+        adoptLayout(gen);
+        return result.dropped;
+    }
+
+    private void adoptLayout(Generator gen) {
         clearGrid();
         placed.clear();
         currentTypingWord = null;
-        
-        List<String> sorted = new ArrayList<>(wordsToPlace);
-        sorted.sort((a, b) -> Integer.compare(b.length(), a.length()));
-        
-        return backtrack(sorted, 0);
-    }
-    
-    private boolean backtrack(List<String> words, int idx) {
-        if (idx >= words.size()) return true;
-        
-        String word = words.get(idx);
-        List<Position> positions = findValidPlacements(word);
-        
-        for (Position pos : positions) {
-            Placement p = new Placement(word, pos.row, pos.col, pos.dir);
+        for (Placement p : gen.placed) {
             placed.add(p);
             applyPlacementToSolution(p);
-            
-            if (backtrack(words, idx + 1)) return true;
-            
-            placed.remove(p);
-            removeWordFromGrid(p);
         }
-        
-        return false;
     }
 
-    // HEURISTICS
-    private int calculatePlacementScore(String word, int row, int col, Direction dir) {
-        int score = 0;
-        
-        int intersections = 0;
-        for (int i = 0; i < word.length(); i++) {
-            int r = (dir == Direction.ACROSS) ? row : row + i;
-            int c = (dir == Direction.ACROSS) ? col + i : col;
-            if (solution[r][c] != '#') intersections++;
-        }
-        score += intersections * 10;
-        
-        int centerRow = ROWS / 2;
-        int centerCol = COLS / 2;
-        int distFromCenter = Math.abs(row - centerRow) + Math.abs(col - centerCol);
-        score += Math.max(0, 20 - distFromCenter);
-        
-        score += word.length() * 2;
-        
-        int vowels = 0;
-        for (char c : word.toCharArray()) {
-            if ("AEIOU".indexOf(c) >= 0) vowels++;
-        }
-        score += vowels * 3;
-        
-        if (!placed.isEmpty()) {
-            long across = placed.stream().filter(p -> p.dir == Direction.ACROSS).count();
-            long down = placed.stream().filter(p -> p.dir == Direction.DOWN).count();
-            if ((dir == Direction.ACROSS && across < down) || (dir == Direction.DOWN && down < across)) {
-                score += 5;
+    // BACKGROUND GENERATION
+    private void startGeneration() {
+        if (generationWorker != null) return;
+        int seed = nextGenerationSeed++;
+
+        // Use the layout prefetched while the user was solving: straight away if it is ready,
+        // by waiting on it if it is still running, and not at all if it found nothing
+        Future<Generator> prefetched = prefetchedGeneration;
+        Generator prefetchGen = prefetchedGenerator;
+        boolean matches = prefetched != null && prefetchedSeed == seed && !prefetched.isCancelled();
+        prefetchedGeneration = null;
+        prefetchedGenerator = null;
+        if (matches && prefetched.isDone()) {
+            matches = false;
+            try {
+                Generator gen = prefetched.get();
+                if (gen != null) {
+                    showGeneratedPuzzle(gen, seed);
+                    return;
+                }
+                seed = nextGenerationSeed++; // This seed has no layout; don't search it again
+            } catch (InterruptedException | ExecutionException e) {
+                // Fall through and generate in the foreground
             }
         }
-        
-        return score;
+        if (prefetched != null && !matches) prefetched.cancel(true);
+
+        generationWorker = matches
+            ? new GenerationWorker(seed, prefetched, prefetchGen)
+            : new GenerationWorker(seed, pickGenerationWords(seed));
+        generateBtn.setEnabled(false);
+        cancelGenerationBtn.setVisible(true);
+        generationProgress.setValue(0);
+        generationProgress.setVisible(true);
+        generationStatus.setText("Generating...");
+        generationExecutor.execute(generationWorker);
     }
 
-    // RANDOMIZATION
-    public boolean generateRandomPuzzle(List<String> wordsToPlace, int seed) {
-        Random random = new Random(seed);
-        clearGrid();
-        placed.clear();
-        currentTypingWord = null;
-        
-        List<String> shuffled = new ArrayList<>(wordsToPlace);
-        Collections.shuffle(shuffled, random);
-        shuffled.sort((a, b) -> {
-            int diff = Integer.compare(b.length(), a.length());
-            return diff != 0 ? diff : random.nextInt(3) - 1;
+    private void cancelGeneration() {
+        if (generationWorker != null) generationWorker.cancel(true);
+    }
+
+    private void finishGeneration(String status) {
+        generationWorker = null;
+        generateBtn.setEnabled(true);
+        cancelGenerationBtn.setVisible(false);
+        generationProgress.setVisible(false);
+        generationStatus.setText(status);
+    }
+
+    private void showGeneratedPuzzle(Generator gen, int seed) {
+        adoptLayout(gen);
+        currentLevelId = -1;
+        updateUIFromSolution(false);
+        updateClueArea();
+        resetGameState();
+        computeScoreFromSolution();
+        frame.setTitle("DSA Crossword - Generated #" + seed);
+        scheduleAutosave();
+        prefetchGeneration(seed + 1);
+    }
+
+    private List<String> pickGenerationWords(int seed) {
+        List<String> pool = new ArrayList<>(new LinkedHashSet<>(words));
+        Collections.shuffle(pool, new Random(seed));
+        return new ArrayList<>(pool.subList(0, Math.min(GENERATED_WORD_COUNT, pool.size())));
+    }
+
+    private void prefetchGeneration(int seed) {
+        List<String> wordsToPlace = pickGenerationWords(seed);
+        Generator gen = new Generator();
+        prefetchedSeed = seed;
+        prefetchedGenerator = gen;
+        prefetchedGeneration = generationExecutor.submit(() -> {
+            if (!gen.generateRandom(wordsToPlace, seed)) return null;
+            gen.optimize(new Random(seed), OPTIMIZE_BUDGET_MS * 1_000_000L, Integer.MAX_VALUE);
+            return gen;
         });
-        
-        return backtrackRandom(shuffled, 0, random);
     }
-    
-    private boolean backtrackRandom(List<String> words, int idx, Random random) {
-        if (idx >= words.size()) return true;
-        
-        String word = words.get(idx);
-        List<Position> positions = findValidPlacements(word);
-        
-        if (positions.isEmpty()) return false;
-        
-        Collections.shuffle(positions, random);
-        
-        for (Position pos : positions) {
-            Placement p = new Placement(word, pos.row, pos.col, pos.dir);
-            placed.add(p);
-            applyPlacementToSolution(p);
-            
-            if (backtrackRandom(words, idx + 1, random)) return true;
-            
-            placed.remove(p);
-            removeWordFromGrid(p);
+
+    private void prefetchLevel(int levelId) {
+        LevelCatalog cat = levelCatalog;
+        int slot = (cat == null) ? -1 : cat.slotOf(levelId);
+        if (slot < 0 || cat.size() < 2) return;
+        int nextId = cat.info((slot + 1) % cat.size()).id;
+        prefetchedLevelId = nextId;
+        prefetchedLevel = generationExecutor.submit(() -> cat.load(nextId));
+    }
+
+    private List<Placement> takePrefetchedLevel(int levelId) {
+        Future<List<Placement>> prefetched = prefetchedLevel;
+        prefetchedLevel = null;
+        if (prefetched == null || prefetchedLevelId != levelId || !prefetched.isDone()) return null;
+        try {
+            return prefetched.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    private class GenerationWorker extends SwingWorker<Generator, long[]> {
+        private final int seed;
+        private final List<String> wordsToPlace;
+        private final Future<Generator> running; // A prefetch of this seed to wait on, or null
+        private final Generator runningGen;
+        private volatile List<String> uncrossable = List.of();
+
+        GenerationWorker(int seed, List<String> wordsToPlace) {
+            this.seed = seed;
+            this.wordsToPlace = wordsToPlace;
+            this.running = null;
+            this.runningGen = null;
+        }
+
+        GenerationWorker(int seed, Future<Generator> running, Generator runningGen) {
+            this.seed = seed;
+            this.wordsToPlace = null;
+            this.running = running;
+            this.runningGen = runningGen;
+        }
+
+        @Override
+        protected Generator doInBackground() throws Exception {
+            Generator.ProgressListener listener = (wordsPlaced, wordsTotal, nodes) ->
+                publish(new long[] { wordsPlaced, wordsTotal, nodes });
+            if (running != null) {
+                runningGen.setProgressListener(listener);
+                try {
+                    Generator gen = running.get();
+                    if (gen == null) uncrossable = runningGen.uncrossable();
+                    return gen;
+                } catch (InterruptedException e) {
+                    running.cancel(true); // Cancel pressed
+                    throw e;
+                }
+            }
+            Generator gen = new Generator();
+            gen.setProgressListener(listener);
+            if (!gen.generateRandom(wordsToPlace, seed)) {
+                uncrossable = gen.uncrossable();
+                return null;
+            }
+            gen.optimize(new Random(seed), OPTIMIZE_BUDGET_MS * 1_000_000L, Integer.MAX_VALUE);
+            return gen;
+        }
+
+        @Override
+        protected void process(List<long[]> chunks) {
+            // Updates are coalesced; only the latest matters
+            long[] latest = chunks.get(chunks.size() - 1);
+            generationProgress.setMaximum((int) latest[1]);
+            generationProgress.setValue((int) latest[0]);
+            generationStatus.setText(String.format("Placed %d/%d, %,d nodes", latest[0], latest[1], latest[2]));
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                finishGeneration("Generation cancelled");
+                return;
+            }
+            try {
+                Generator gen = get();
+                if (gen == null) {
+                    finishGeneration("No layout found for seed " + seed
+                        + (uncrossable.isEmpty() ? "" : " (" + String.join(", ", uncrossable) + " cross no other word)"));
+                } else {
+                    finishGeneration(String.format("Generated in %,d nodes", gen.nodes));
+                    showGeneratedPuzzle(gen, seed);
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                finishGeneration("Generation failed: " + e.getCause());
+            }
         }
-        
-        return false;
     }
 
     // UNDO/REDO FOR USER INPUT
@@ -883,6 +1033,7 @@ public class JavaCrosswordGenerator {
         if (previousChar == newChar) return;
         UserAction action = new UserAction(row, col, previousChar, newChar);
         userUndoStack.push(action);
+        scheduleAutosave();
     }
     
     public void undoLastAction() {
@@ -898,6 +1049,7 @@ public class JavaCrosswordGenerator {
         field.setText(action.previousChar == ' ' ? "" : String.valueOf(action.previousChar));
         
         isUndoRedoAction = false;
+        scheduleAutosave();
     }
     
     public void redoLastAction() {
@@ -913,6 +1065,7 @@ public class JavaCrosswordGenerator {
         field.setText(action.newChar == ' ' ? "" : String.valueOf(action.newChar));
         
         isUndoRedoAction = false;
+        scheduleAutosave();
     }
     
     
@@ -924,89 +1077,3406 @@ public class JavaCrosswordGenerator {
         updateScore();
     }
     
-    private void clearGrid() {
-        for (int r = 0; r < ROWS; r++) {
-            Arrays.fill(solution[r], '#');
-        }
+    // SESSION PERSISTENCE
+    private void scheduleAutosave() {
+        if (!autosaveEnabled) return;
+        autosaveTimer.restart(); // Debounce bursts of typing into a single write
     }
 
-    // HELPER CLASSES
-    private enum Direction { ACROSS, DOWN }
-    
-    private static class Position {
-        final int row, col;
-        final Direction dir;
-        final int score;
-        
-        Position(int row, int col, Direction dir, int score) {
-            this.row = row;
-            this.col = col;
-            this.dir = dir;
-            this.score = score;
+    private void autosave() {
+        // Snapshot on the EDT, encode and write on the background thread
+        SessionSnapshot snapshot = captureSession();
+        autosaveExecutor.execute(() -> {
+            try {
+                writeSession(snapshot, AUTOSAVE_PATH);
+            } catch (IOException e) {
+                System.err.println("Autosave failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void restoreAutosave() {
+        if (!Files.isRegularFile(AUTOSAVE_PATH)) return;
+        try {
+            applySession(readSession(AUTOSAVE_PATH));
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable autosave: " + e.getMessage());
         }
     }
-    
-    private static class UserAction {
-        final int row, col;
-        final char previousChar, newChar;
-        
-        UserAction(int row, int col, char previousChar, char newChar) {
-            this.row = row;
-            this.col = col;
-            this.previousChar = previousChar;
-            this.newChar = newChar;
+
+    private void saveSessionAs() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        SessionSnapshot snapshot = captureSession();
+        Path target = chooser.getSelectedFile().toPath();
+        autosaveExecutor.execute(() -> {
+            try {
+                writeSession(snapshot, target);
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() ->
+                    JOptionPane.showMessageDialog(frame, "Could not save session: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void loadSessionFrom() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            applySession(readSession(chooser.getSelectedFile().toPath()));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "Could not load session: " + e.getMessage());
         }
     }
 
-    private static class Placement {
-        final String word;
-        final int row, col;
-        final Direction dir;
+    private SessionSnapshot captureSession() {
+        char[] letters = new char[ROWS * COLS];
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) {
+                String text = cellFields[r][c].getText();
+                letters[r * COLS + c] = text.isEmpty() ? ' ' : text.charAt(0);
+            }
+        }
+        List<String> placementClues = new ArrayList<>();
+        for (Placement p : placed) placementClues.add(clues.primary(p.word, ""));
+        return new SessionSnapshot(frame.getTitle(), score, new ArrayList<>(placed), placementClues, letters,
+            new ArrayList<>(userUndoStack), new ArrayList<>(userRedoStack));
+    }
 
-        Placement(String word, int row, int col, Direction dir) {
-            this.word = word;
-            this.row = row;
-            this.col = col;
-            this.dir = dir;
+    private void applySession(SessionSnapshot s) {
+        clearGrid();
+        placed.clear();
+        currentTypingWord = null;
+        currentLevelId = -1;
+        for (int i = 0; i < s.placements.size(); i++) {
+            Placement p = s.placements.get(i);
+            placed.add(p);
+            applyPlacementToSolution(p);
+            if (!s.clues.get(i).isEmpty()) clues.addPreferred(p.word, s.clues.get(i));
         }
+        updateUIFromSolution(false);
+        updateClueArea();
 
-        boolean coversCell(int r, int c) {
-            if (dir == Direction.ACROSS) {
-                return r == row && c >= col && c < col + word.length();
-            } else {
-                return c == col && r >= row && r < row + word.length();
+        isUndoRedoAction = true;
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) {
+                char ch = s.letters[r * COLS + c];
+                if (ch != ' ' && cellFields[r][c].isEditable()) cellFields[r][c].setText(String.valueOf(ch));
             }
         }
+        isUndoRedoAction = false;
+
+        userUndoStack.clear();
+        userRedoStack.clear();
+        userUndoStack.addAll(s.undo); // Captured top-first, so append keeps the order
+        userRedoStack.addAll(s.redo);
+        score = s.score;
+        updateScore();
+        frame.setTitle(s.title);
+    }
+
+    private static void writeSession(SessionSnapshot s, Path target) throws IOException {
+        ByteBuffer buf = encodeSession(s);
+        Path dir = target.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        // A temp file of its own per write, so concurrent saves never share one
+        Path tmp = Files.createTempFile(dir != null ? dir : Paths.get("."), target.getFileName().toString(), ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining()) ch.write(buf);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        // Never leave a half-written session behind
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
-    private static class Trie {
-        private static class Node {
-            Node[] next = new Node[26];
-            boolean end = false;
+    private static SessionSnapshot readSession(Path source) throws IOException {
+        try (FileChannel ch = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Session file too large");
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+            buf.flip();
+            return decodeSession(buf);
         }
+    }
 
-        private final Node root = new Node();
+    // Layout: magic, version, score, title, placements (word, row, col, dir, clue),
+    // ROWS*COLS letters (0 = empty), then undo and redo journals top-first.
+    private static ByteBuffer encodeSession(SessionSnapshot s) {
+        byte[] title = s.title.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> words = new ArrayList<>();
+        List<byte[]> clueBytes = new ArrayList<>();
+        int size = 4 + 1 + 4 + 4 + title.length + 2 + 2 + s.letters.length + 4 + 4
+            + 4 * (s.undo.size() + s.redo.size());
+        for (int i = 0; i < s.placements.size(); i++) {
+            byte[] w = s.placements.get(i).word.getBytes(StandardCharsets.US_ASCII);
+            byte[] c = s.clues.get(i).getBytes(StandardCharsets.UTF_8);
+            words.add(w);
+            clueBytes.add(c);
+            size += 1 + w.length + 3 + 4 + c.length;
+        }
 
-        void insert(String s) {
-            Node cur = root;
-            for (char ch : s.toCharArray()) {
-                if (ch < 'A' || ch > 'Z') continue;
-                int idx = ch - 'A';
-                if (cur.next[idx] == null) cur.next[idx] = new Node();
-                cur = cur.next[idx];
-            }
-            cur.end = true;
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(SESSION_MAGIC).put(SESSION_VERSION).putInt(s.score);
+        buf.putInt(title.length).put(title);
+        buf.putShort((short) s.placements.size());
+        for (int i = 0; i < s.placements.size(); i++) {
+            Placement p = s.placements.get(i);
+            buf.put((byte) words.get(i).length).put(words.get(i));
+            buf.put((byte) p.row).put((byte) p.col).put((byte) p.dir.ordinal());
+            buf.putInt(clueBytes.get(i).length).put(clueBytes.get(i));
         }
+        buf.put((byte) ROWS).put((byte) COLS);
+        for (char ch : s.letters) buf.put(ch == ' ' ? 0 : (byte) ch);
+        putActions(buf, s.undo);
+        putActions(buf, s.redo);
+        buf.flip();
+        return buf;
+    }
 
-        boolean contains(String s) {
-            Node cur = root;
-            for (char ch : s.toCharArray()) {
-                if (ch < 'A' || ch > 'Z') return false;
-                int idx = ch - 'A';
-                if (cur.next[idx] == null) return false;
-                cur = cur.next[idx];
+    private static SessionSnapshot decodeSession(ByteBuffer buf) throws IOException {
+        try {
+            if (buf.getInt() != SESSION_MAGIC) throw new IOException("Not a crossword session file");
+            byte version = buf.get();
+            if (version != SESSION_VERSION) throw new IOException("Unsupported session version " + version);
+            int score = buf.getInt();
+            String title = getString(buf, getLength(buf), StandardCharsets.UTF_8);
+
+            int count = buf.getShort() & 0xFFFF;
+            List<Placement> placements = new ArrayList<>(count);
+            List<String> placementClues = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String word = getString(buf, buf.get() & 0xFF, StandardCharsets.US_ASCII);
+                int row = buf.get(), col = buf.get(), dir = buf.get();
+                if (dir < 0 || dir >= Direction.values().length) throw new IOException("Corrupt placement " + word);
+                Placement p = new Placement(word, row, col, Direction.values()[dir]);
+                if (!fitsGrid(p)) throw new IOException("Placement " + word + " is outside the grid");
+                placements.add(p);
+                placementClues.add(getString(buf, getLength(buf), StandardCharsets.UTF_8));
+            }
+
+            if (buf.get() != ROWS || buf.get() != COLS) throw new IOException("Session grid size mismatch");
+            char[] letters = new char[ROWS * COLS];
+            for (int i = 0; i < letters.length; i++) {
+                byte b = buf.get();
+                letters[i] = (b >= 'A' && b <= 'Z') ? (char) b : ' ';
+            }
+            return new SessionSnapshot(title, score, placements, placementClues, letters,
+                getActions(buf), getActions(buf));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated session file");
+        }
+    }
+
+    private static boolean fitsGrid(Placement p) {
+        int endRow = (p.dir == Direction.ACROSS) ? p.row : p.row + p.word.length() - 1;
+        int endCol = (p.dir == Direction.ACROSS) ? p.col + p.word.length() - 1 : p.col;
+        return p.row >= 0 && p.col >= 0 && endRow < ROWS && endCol < COLS;
+    }
+
+    private static int getLength(ByteBuffer buf) throws IOException {
+        int length = buf.getInt();
+        if (length < 0 || length > buf.remaining()) throw new IOException("Truncated session file");
+        return length;
+    }
+
+    private static String getString(ByteBuffer buf, int length, java.nio.charset.Charset charset) {
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    private static void putActions(ByteBuffer buf, List<UserAction> actions) {
+        buf.putInt(actions.size());
+        for (UserAction a : actions) {
+            buf.put((byte) a.row).put((byte) a.col).put((byte) a.previousChar).put((byte) a.newChar);
+        }
+    }
+
+    private static List<UserAction> getActions(ByteBuffer buf) throws IOException {
+        int count = buf.getInt();
+        if (count < 0 || count > buf.remaining() / 4) throw new IOException("Corrupt undo journal");
+        List<UserAction> actions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int row = buf.get(), col = buf.get();
+            if (row < 0 || row >= ROWS || col < 0 || col >= COLS) throw new IOException("Corrupt undo journal");
+            actions.add(new UserAction(row, col, (char) buf.get(), (char) buf.get()));
+        }
+        return actions;
+    }
+
+    // PUZZLE INTERCHANGE (.puz / ipuz)
+    private static final String PUZ_MAGIC = "ACROSS&DOWN\0";
+    private static final int PUZ_HEADER_SIZE = 0x34;
+
+    private void importPuzzle() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        Path source = chooser.getSelectedFile().toPath();
+
+        new SwingWorker<List<PuzzleLoadResult>, Void>() {
+            @Override
+            protected List<PuzzleLoadResult> doInBackground() throws IOException {
+                return Files.isDirectory(source)
+                    ? readPuzzleDirectory(source)
+                    : List.of(readPuzzleChecked(source));
+            }
+
+            @Override
+            protected void done() {
+                List<PuzzleLoadResult> results;
+                try {
+                    results = get();
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(frame, "Import failed: " + e.getMessage());
+                    return;
+                }
+                showImportResults(results);
+            }
+        }.execute();
+    }
+
+    private void showImportResults(List<PuzzleLoadResult> results) {
+        List<PuzzleData> valid = new ArrayList<>();
+        StringBuilder errors = new StringBuilder();
+        int errorCount = 0;
+        for (PuzzleLoadResult r : results) {
+            if (r.puzzle != null) {
+                valid.add(r.puzzle);
+            } else if (++errorCount <= 10) {
+                errors.append(r.file.getFileName()).append(": ").append(r.error).append("\n");
+            }
+        }
+
+        if (valid.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No valid puzzles found.\n\n" + errors);
+            return;
+        }
+        if (errorCount > 0) {
+            JOptionPane.showMessageDialog(frame, String.format("Loaded %d puzzles, skipped %d:\n\n%s",
+                valid.size(), errorCount, errors));
+        }
+
+        PuzzleData chosen = valid.get(0);
+        if (valid.size() > 1) {
+            chosen = (PuzzleData) JOptionPane.showInputDialog(frame, "Choose a puzzle:", "Import",
+                JOptionPane.PLAIN_MESSAGE, null, valid.toArray(), chosen);
+            if (chosen == null) return;
+        }
+        loadPuzzle(chosen);
+    }
+
+    private void exportPuzzle() {
+        if (placed.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No puzzle loaded.");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        Path target = chooser.getSelectedFile().toPath();
+        String name = target.getFileName().toString().toLowerCase();
+        if (!name.endsWith(".puz") && !name.endsWith(".ipuz")) {
+            target = target.resolveSibling(target.getFileName() + ".puz");
+        }
+        try {
+            writePuzzle(toPuzzleData(), target);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "Export failed: " + e.getMessage());
+        }
+    }
+
+    private void loadPuzzle(PuzzleData puzzle) {
+        clearGrid();
+        placed.clear();
+        currentTypingWord = null;
+
+        // Center the imported grid on the board
+        int rowOffset = (ROWS - puzzle.height) / 2;
+        int colOffset = (COLS - puzzle.width) / 2;
+        currentLevelId = -1;
+        for (int i = 0; i < puzzle.placements.size(); i++) {
+            Placement p = puzzle.placements.get(i);
+            Placement moved = new Placement(p.word, p.row + rowOffset, p.col + colOffset, p.dir);
+            placed.add(moved);
+            applyPlacementToSolution(moved);
+            clues.addPreferred(p.word, puzzle.clues.get(i));
+            trie.insert(p.word);
+        }
+
+        updateUIFromSolution(false);
+        updateClueArea();
+        resetGameState();
+        computeScoreFromSolution();
+        frame.setTitle("DSA Crossword - " + puzzle.title);
+        scheduleAutosave();
+    }
+
+    private PuzzleData toPuzzleData() {
+        int minRow = ROWS, minCol = COLS, maxRow = 0, maxCol = 0;
+        for (Placement p : placed) {
+            minRow = Math.min(minRow, p.row);
+            minCol = Math.min(minCol, p.col);
+            maxRow = Math.max(maxRow, (p.dir == Direction.ACROSS) ? p.row : p.row + p.word.length() - 1);
+            maxCol = Math.max(maxCol, (p.dir == Direction.ACROSS) ? p.col + p.word.length() - 1 : p.col);
+        }
+        int height = maxRow - minRow + 1;
+        int width = maxCol - minCol + 1;
+        char[][] grid = new char[height][width];
+        for (int r = 0; r < height; r++) {
+            System.arraycopy(solution[minRow + r], minCol, grid[r], 0, width);
+        }
+
+        // Slots are re-derived from the grid, which is what every .puz/ipuz reader will see
+        List<Placement> slots = slotsOf(grid);
+        List<String> slotClues = new ArrayList<>();
+        for (Placement s : slots) slotClues.add(clues.primary(s.word, "No clue"));
+        String title = frame.getTitle().replaceFirst("^DSA Crossword - ", "");
+        return new PuzzleData(title, "DSA Crossword Generator", width, height, slots, slotClues);
+    }
+
+    // Numbered slots in standard order: reading order, across before down
+    private static List<Placement> slotsOf(char[][] grid) {
+        int height = grid.length, width = grid[0].length;
+        List<Placement> slots = new ArrayList<>();
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                if (grid[r][c] == '#') continue;
+                if ((c == 0 || grid[r][c-1] == '#') && c + 1 < width && grid[r][c+1] != '#') {
+                    StringBuilder w = new StringBuilder();
+                    for (int cc = c; cc < width && grid[r][cc] != '#'; cc++) w.append(grid[r][cc]);
+                    slots.add(new Placement(w.toString(), r, c, Direction.ACROSS));
+                }
+                if ((r == 0 || grid[r-1][c] == '#') && r + 1 < height && grid[r+1][c] != '#') {
+                    StringBuilder w = new StringBuilder();
+                    for (int rr = r; rr < height && grid[rr][c] != '#'; rr++) w.append(grid[rr][c]);
+                    slots.add(new Placement(w.toString(), r, c, Direction.DOWN));
+                }
+            }
+        }
+        return slots;
+    }
+
+    private static int[] slotNumbers(List<Placement> slots) {
+        int[] numbers = new int[slots.size()];
+        int next = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            Placement s = slots.get(i);
+            boolean sharesStart = i > 0 && slots.get(i-1).row == s.row && slots.get(i-1).col == s.col;
+            numbers[i] = sharesStart ? numbers[i-1] : ++next;
+        }
+        return numbers;
+    }
+
+    private static PuzzleData puzzleFromGrid(String title, String author, char[][] grid, List<String> slotClues)
+            throws IOException {
+        int height = grid.length, width = grid[0].length;
+        if (width > COLS || height > ROWS) {
+            throw new IOException(String.format("Grid %dx%d does not fit the %dx%d board", width, height, COLS, ROWS));
+        }
+        for (char[] row : grid) {
+            for (char ch : row) {
+                if (ch != '#' && (ch < 'A' || ch > 'Z')) throw new IOException("Unsupported cell '" + ch + "'");
+            }
+        }
+        List<Placement> slots = slotsOf(grid);
+        if (slots.isEmpty()) throw new IOException("Puzzle has no words");
+        if (slotClues.size() != slots.size()) {
+            throw new IOException("Expected " + slots.size() + " clues but found " + slotClues.size());
+        }
+        return new PuzzleData(title, author, width, height, slots, slotClues);
+    }
+
+    private static List<PuzzleLoadResult> readPuzzleDirectory(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.{puz,ipuz,PUZ,IPUZ}")) {
+            for (Path p : stream) files.add(p);
+        }
+        files.sort(null);
+        // Files are independent, so parsing and validation fan out across cores
+        return files.parallelStream().map(JavaCrosswordGenerator::readPuzzleChecked).toList();
+    }
+
+    private static PuzzleLoadResult readPuzzleChecked(Path file) {
+        try {
+            return new PuzzleLoadResult(file, readPuzzle(file), null);
+        } catch (IOException | RuntimeException e) {
+            return new PuzzleLoadResult(file, null, e.getMessage());
+        }
+    }
+
+    private static PuzzleData readPuzzle(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".ipuz")) {
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                return readIpuz(in);
+            }
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > 1 << 20) throw new IOException("File too large for a .puz puzzle");
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size());
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+            buf.flip();
+            return readPuz(buf);
+        }
+    }
+
+    private static void writePuzzle(PuzzleData puzzle, Path target) throws IOException {
+        if (target.getFileName().toString().toLowerCase().endsWith(".ipuz")) {
+            Files.writeString(target, toIpuz(puzzle), StandardCharsets.UTF_8);
+            return;
+        }
+        ByteBuffer buf = toPuz(puzzle);
+        try (FileChannel ch = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    // Across Lite .puz: little-endian header, solution and player grids, then NUL-terminated strings
+    private static PuzzleData readPuz(ByteBuffer buf) throws IOException {
+        try {
+            buf.order(java.nio.ByteOrder.LITTLE_ENDIAN);
+            if (!PUZ_MAGIC.equals(getString(buf.position(2), PUZ_MAGIC.length(), StandardCharsets.ISO_8859_1))) {
+                throw new IOException("Not an Across Lite puzzle");
+            }
+            int checksum = buf.getShort(0) & 0xFFFF;
+            int width = buf.get(0x2C) & 0xFF, height = buf.get(0x2D) & 0xFF;
+            int clueCount = buf.getShort(0x2E) & 0xFFFF;
+            if (buf.getShort(0x32) != 0) throw new IOException("Scrambled puzzles are not supported");
+            if (width == 0 || height == 0) throw new IOException("Empty grid");
+
+            byte[] sol = new byte[width * height];
+            byte[] state = new byte[width * height];
+            buf.position(PUZ_HEADER_SIZE);
+            buf.get(sol).get(state);
+
+            String title = readNulString(buf), author = readNulString(buf), copyright = readNulString(buf);
+            List<String> clueList = new ArrayList<>(clueCount);
+            for (int i = 0; i < clueCount; i++) clueList.add(readNulString(buf));
+            String notes = buf.hasRemaining() ? readNulString(buf) : "";
+
+            byte[] cib = new byte[8];
+            buf.get(0x2C, cib);
+            // Notes only count towards the checksum from version 1.3 on
+            String summedNotes = (puzVersion(buf) >= 103) ? notes : "";
+            if (puzChecksum(cib, sol, state, title, author, copyright, clueList, summedNotes) != checksum) {
+                throw new IOException("Checksum mismatch");
+            }
+
+            char[][] grid = new char[height][width];
+            for (int r = 0; r < height; r++) {
+                for (int c = 0; c < width; c++) {
+                    byte b = sol[r * width + c];
+                    grid[r][c] = (b == '.') ? '#' : (char) b;
+                }
+            }
+            return puzzleFromGrid(title.isEmpty() ? "Untitled" : title, author, grid, clueList);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated .puz file");
+        }
+    }
+
+    // The "major.minor" version string at 0x18 as major * 100 + minor; unreadable ones count as current
+    private static int puzVersion(ByteBuffer buf) {
+        String version = getString(buf.position(0x18), 4, StandardCharsets.ISO_8859_1);
+        int nul = version.indexOf('\0'), dot = version.indexOf('.');
+        if (nul >= 0) version = version.substring(0, nul);
+        try {
+            if (dot <= 0 || dot >= version.length() - 1) return Integer.MAX_VALUE;
+            return Integer.parseInt(version.substring(0, dot)) * 100 + Integer.parseInt(version.substring(dot + 1));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static ByteBuffer toPuz(PuzzleData puzzle) {
+        char[][] grid = puzzle.grid();
+        byte[] sol = new byte[puzzle.width * puzzle.height];
+        byte[] state = new byte[sol.length];
+        for (int r = 0; r < puzzle.height; r++) {
+            for (int c = 0; c < puzzle.width; c++) {
+                boolean block = grid[r][c] == '#';
+                sol[r * puzzle.width + c] = (byte) (block ? '.' : grid[r][c]);
+                state[r * puzzle.width + c] = (byte) (block ? '.' : '-');
+            }
+        }
+
+        List<byte[]> strings = new ArrayList<>();
+        strings.add(puzzle.title.getBytes(StandardCharsets.ISO_8859_1));
+        strings.add(puzzle.author.getBytes(StandardCharsets.ISO_8859_1));
+        strings.add(new byte[0]); // copyright
+        for (String clue : puzzle.clues) strings.add(clue.getBytes(StandardCharsets.ISO_8859_1));
+        strings.add(new byte[0]); // notes
+        int size = PUZ_HEADER_SIZE + sol.length * 2;
+        for (byte[] s : strings) size += s.length + 1;
+
+        ByteBuffer buf = ByteBuffer.allocate(size).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        buf.position(2).put(PUZ_MAGIC.getBytes(StandardCharsets.ISO_8859_1));
+        buf.position(0x18).put("1.3\0".getBytes(StandardCharsets.ISO_8859_1));
+        buf.position(0x2C).put((byte) puzzle.width).put((byte) puzzle.height)
+            .putShort((short) puzzle.clues.size()).putShort((short) 1).putShort((short) 0);
+        buf.put(sol).put(state);
+        for (byte[] s : strings) buf.put(s).put((byte) 0);
+
+        byte[] cib = new byte[8];
+        buf.get(0x2C, cib);
+        int cibSum = puzCksum(cib, 0, cib.length, 0);
+        int solSum = puzCksum(sol, 0, sol.length, 0);
+        int stateSum = puzCksum(state, 0, state.length, 0);
+        int partSum = puzTextChecksum(puzzle.title, puzzle.author, "", puzzle.clues, "", 0);
+        buf.putShort(0, (short) puzChecksum(cib, sol, state, puzzle.title, puzzle.author, "", puzzle.clues, ""));
+        buf.putShort(0x0E, (short) cibSum);
+        byte[] mask = "ICHEATED".getBytes(StandardCharsets.ISO_8859_1);
+        int[] sums = { cibSum, solSum, stateSum, partSum };
+        for (int i = 0; i < 4; i++) {
+            buf.put(0x10 + i, (byte) (mask[i] ^ (sums[i] & 0xFF)));
+            buf.put(0x14 + i, (byte) (mask[i + 4] ^ (sums[i] >> 8)));
+        }
+        return buf.position(0);
+    }
+
+    private static int puzChecksum(byte[] cib, byte[] sol, byte[] state, String title, String author,
+                                   String copyright, List<String> clueList, String notes) {
+        int sum = puzCksum(cib, 0, cib.length, 0);
+        sum = puzCksum(sol, 0, sol.length, sum);
+        sum = puzCksum(state, 0, state.length, sum);
+        return puzTextChecksum(title, author, copyright, clueList, notes, sum);
+    }
+
+    private static int puzTextChecksum(String title, String author, String copyright, List<String> clueList,
+                                       String notes, int sum) {
+        for (String s : new String[] { title, author, copyright }) {
+            if (!s.isEmpty()) sum = puzCksum((s + "\0").getBytes(StandardCharsets.ISO_8859_1), sum);
+        }
+        for (String clue : clueList) sum = puzCksum(clue.getBytes(StandardCharsets.ISO_8859_1), sum);
+        if (!notes.isEmpty()) sum = puzCksum((notes + "\0").getBytes(StandardCharsets.ISO_8859_1), sum);
+        return sum;
+    }
+
+    private static int puzCksum(byte[] data, int sum) {
+        return puzCksum(data, 0, data.length, sum);
+    }
+
+    private static int puzCksum(byte[] data, int from, int to, int sum) {
+        for (int i = from; i < to; i++) {
+            sum = ((sum & 1) != 0) ? (sum >> 1) + 0x8000 : sum >> 1;
+            sum = (sum + (data[i] & 0xFF)) & 0xFFFF;
+        }
+        return sum;
+    }
+
+    private static String readNulString(ByteBuffer buf) {
+        int start = buf.position();
+        while (buf.get() != 0) { }
+        byte[] bytes = new byte[buf.position() - start - 1];
+        buf.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    // ipuz: JSON crossword with "solution" rows and numbered "clues"
+    @SuppressWarnings("unchecked")
+    private static PuzzleData readIpuz(Reader in) throws IOException {
+        Object root = new JsonReader(in).readValue();
+        if (!(root instanceof Map)) throw new IOException("ipuz root must be an object");
+        Map<String, Object> ipuz = (Map<String, Object>) root;
+        if (!String.valueOf(ipuz.get("kind")).contains("crossword")) throw new IOException("Not an ipuz crossword");
+
+        String block = String.valueOf(ipuz.getOrDefault("block", "#"));
+        if (!(ipuz.get("solution") instanceof List)) throw new IOException("ipuz puzzle has no solution");
+        List<Object> rows = (List<Object>) ipuz.get("solution");
+        if (rows.isEmpty()) throw new IOException("Empty grid");
+        char[][] grid = new char[rows.size()][];
+        for (int r = 0; r < rows.size(); r++) {
+            List<Object> row = (List<Object>) rows.get(r);
+            grid[r] = new char[row.size()];
+            if (row.size() != grid[0].length) throw new IOException("Ragged solution grid");
+            for (int c = 0; c < row.size(); c++) {
+                Object cell = row.get(c);
+                if (cell instanceof Map) cell = ((Map<String, Object>) cell).get("value");
+                String text = (cell == null) ? block : cell.toString().toUpperCase();
+                grid[r][c] = (text.equals(block) || text.isEmpty()) ? '#' : text.charAt(0);
+                if (text.length() > 1 && !text.equals(block)) throw new IOException("Rebus cells are not supported");
+            }
+        }
+
+        // Clues are keyed by number and direction; map them back onto the derived slots
+        List<Placement> slots = slotsOf(grid);
+        int[] numbers = slotNumbers(slots);
+        Map<String, String> byKey = new HashMap<>();
+        Map<String, Object> clueSets = (Map<String, Object>) ipuz.getOrDefault("clues", Map.of());
+        for (Map.Entry<String, Object> set : clueSets.entrySet()) {
+            String dir = set.getKey().split(":")[0].trim().toUpperCase();
+            for (Object item : (List<Object>) set.getValue()) {
+                Object number, text;
+                if (item instanceof List) {
+                    number = ((List<Object>) item).get(0);
+                    text = ((List<Object>) item).get(1);
+                } else if (item instanceof Map) {
+                    number = ((Map<String, Object>) item).get("number");
+                    text = ((Map<String, Object>) item).get("clue");
+                } else {
+                    throw new IOException("Unnumbered clue: " + item);
+                }
+                byKey.put(dir + ":" + String.valueOf(number).replaceFirst("\\.0$", ""), String.valueOf(text));
+            }
+        }
+        List<String> slotClues = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            String clue = byKey.get(slots.get(i).dir + ":" + numbers[i]);
+            if (clue == null) throw new IOException("Missing clue " + numbers[i] + " " + slots.get(i).dir);
+            slotClues.add(clue);
+        }
+
+        Object title = ipuz.get("title");
+        Object author = ipuz.get("author");
+        return puzzleFromGrid(title == null ? "Untitled" : title.toString(),
+            author == null ? "" : author.toString(), grid, slotClues);
+    }
+
+    private static String toIpuz(PuzzleData puzzle) {
+        char[][] grid = puzzle.grid();
+        int[] numbers = slotNumbers(puzzle.placements);
+        int[][] cellNumbers = new int[puzzle.height][puzzle.width];
+        for (int i = 0; i < numbers.length; i++) {
+            cellNumbers[puzzle.placements.get(i).row][puzzle.placements.get(i).col] = numbers[i];
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"version\": \"http://ipuz.org/v2\",\n");
+        sb.append("  \"kind\": [\"http://ipuz.org/crossword#1\"],\n");
+        sb.append("  \"title\": ").append(jsonString(puzzle.title)).append(",\n");
+        sb.append("  \"author\": ").append(jsonString(puzzle.author)).append(",\n");
+        sb.append("  \"dimensions\": {\"width\": ").append(puzzle.width)
+            .append(", \"height\": ").append(puzzle.height).append("},\n");
+        sb.append("  \"puzzle\": [\n");
+        for (int r = 0; r < puzzle.height; r++) {
+            sb.append("    [");
+            for (int c = 0; c < puzzle.width; c++) {
+                if (c > 0) sb.append(", ");
+                sb.append(grid[r][c] == '#' ? "\"#\"" : String.valueOf(cellNumbers[r][c]));
+            }
+            sb.append(r + 1 < puzzle.height ? "],\n" : "]\n");
+        }
+        sb.append("  ],\n  \"solution\": [\n");
+        for (int r = 0; r < puzzle.height; r++) {
+            sb.append("    [");
+            for (int c = 0; c < puzzle.width; c++) {
+                if (c > 0) sb.append(", ");
+                sb.append('"').append(grid[r][c]).append('"');
+            }
+            sb.append(r + 1 < puzzle.height ? "],\n" : "]\n");
+        }
+        sb.append("  ],\n  \"clues\": {\n");
+        for (Direction dir : Direction.values()) {
+            sb.append("    \"").append(dir == Direction.ACROSS ? "Across" : "Down").append("\": [");
+            boolean first = true;
+            for (int i = 0; i < puzzle.placements.size(); i++) {
+                if (puzzle.placements.get(i).dir != dir) continue;
+                sb.append(first ? "\n" : ",\n").append("      [").append(numbers[i]).append(", ")
+                    .append(jsonString(puzzle.clues.get(i))).append("]");
+                first = false;
+            }
+            sb.append(dir == Direction.ACROSS ? "\n    ],\n" : "\n    ]\n");
+        }
+        sb.append("  }\n}\n");
+        return sb.toString();
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // LEVEL CATALOG
+    private LevelCatalog catalog() throws IOException {
+        if (levelCatalog == null) levelCatalog = LevelCatalog.open(catalogPath());
+        return levelCatalog;
+    }
+
+    private static Path catalogPath() {
+        String configured = System.getProperty("crossword.catalog");
+        if (configured != null) return Paths.get(configured);
+        try {
+            // Prefer the catalog shipped next to the classes, so the working directory does not matter
+            Path besideClasses = Paths.get(JavaCrosswordGenerator.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI()).resolve(CATALOG_FILE);
+            if (Files.isRegularFile(besideClasses)) return besideClasses;
+        } catch (Exception e) {
+            // Fall back to the working directory
+        }
+        return Paths.get(CATALOG_FILE);
+    }
+
+    private void loadAdjacentLevel(int delta) {
+        try {
+            LevelCatalog cat = catalog();
+            int slot = cat.slotOf(currentLevelId);
+            int next = (slot < 0) ? 0 : Math.floorMod(slot + delta, cat.size());
+            if (cat.size() > 0) loadLevel(cat.info(next).id);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "Level catalog unavailable: " + e.getMessage());
+        }
+    }
+
+    private void showLevelBrowser() {
+        LevelCatalog cat;
+        try {
+            cat = catalog();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "Level catalog unavailable: " + e.getMessage());
+            return;
+        }
+
+        JDialog dialog = new JDialog(frame, "Levels", true);
+        DefaultListModel<LevelInfo> model = new DefaultListModel<>();
+        JList<LevelInfo> list = new JList<>(model);
+        JLabel pageLabel = new JLabel("", JLabel.CENTER);
+        JButton prevPage = new JButton("<");
+        JButton nextPage = new JButton(">");
+        JButton open = new JButton("Open");
+        int pageCount = Math.max(1, (cat.size() + LEVEL_PAGE_SIZE - 1) / LEVEL_PAGE_SIZE);
+        int[] page = { Math.max(0, cat.slotOf(currentLevelId)) / LEVEL_PAGE_SIZE };
+
+        Runnable showPage = () -> {
+            model.clear();
+            for (LevelInfo info : cat.page(page[0], LEVEL_PAGE_SIZE)) model.addElement(info);
+            pageLabel.setText(String.format("Page %d of %d", page[0] + 1, pageCount));
+            prevPage.setEnabled(page[0] > 0);
+            nextPage.setEnabled(page[0] + 1 < pageCount);
+        };
+        Runnable openSelected = () -> {
+            LevelInfo info = list.getSelectedValue();
+            if (info == null) return;
+            dialog.dispose();
+            loadLevel(info.id);
+        };
+        prevPage.addActionListener(_ -> { page[0]--; showPage.run(); });
+        nextPage.addActionListener(_ -> { page[0]++; showPage.run(); });
+        open.addActionListener(_ -> openSelected.run());
+        list.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                if (e.getClickCount() == 2) openSelected.run();
+            }
+        });
+
+        JPanel nav = new JPanel(new BorderLayout(6, 6));
+        nav.add(prevPage, BorderLayout.WEST);
+        nav.add(pageLabel, BorderLayout.CENTER);
+        nav.add(nextPage, BorderLayout.EAST);
+        nav.add(open, BorderLayout.SOUTH);
+        dialog.setLayout(new BorderLayout(6, 6));
+        dialog.add(new JScrollPane(list), BorderLayout.CENTER);
+        dialog.add(nav, BorderLayout.SOUTH);
+        showPage.run();
+        dialog.setSize(420, 480);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setVisible(true);
+    }
+
+    private static int validateCatalog(Path path) {
+        LevelCatalog cat;
+        try {
+            cat = LevelCatalog.open(path);
+        } catch (IOException e) {
+            System.err.println(path + ": " + e.getMessage());
+            return 1;
+        }
+
+        Trie dictionary = new Trie();
+        addDefaultWords((w, _) -> dictionary.insert(w));
+        int failures = 0;
+        for (int slot = 0; slot < cat.size(); slot++) {
+            LevelInfo info = cat.info(slot);
+            List<String> problems;
+            try {
+                List<Placement> layout = cat.load(info.id);
+                problems = validateLayout(layout);
+                // Clues can still disambiguate, so an ambiguous fill is reported but not fatal
+                String uniqueness = problems.isEmpty() ? checkUniqueFill(layout, dictionary) : null;
+                if (uniqueness != null) System.err.println("Level " + info.id + ": warning: " + uniqueness);
+            } catch (IOException e) {
+                problems = List.of(e.getMessage());
+            }
+            for (String problem : problems) System.err.println("Level " + info.id + ": " + problem);
+            if (!problems.isEmpty()) failures++;
+        }
+        System.out.printf("%d levels checked, %d invalid%n", cat.size(), failures);
+        return failures == 0 ? 0 : 1;
+    }
+
+    // REGRESSION CORPUS
+    // Each line is mode|seed|WORD,WORD,...|nodes|layout, with layout in catalog syntax or "-" for
+    // no layout. Replay reruns every line and fails on any difference, so a change that is meant
+    // to be a pure speed-up can be shown not to alter output. Record rewrites the nodes and
+    // layout columns (lines may be given as just mode|seed|words).
+    private static int replayCorpus(Path path, boolean record) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println(path + ": " + e.getMessage());
+            return 1;
+        }
+        List<String> out = new ArrayList<>();
+        int cases = 0, failures = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank() || line.startsWith("#")) {
+                out.add(line);
+                continue;
+            }
+            String[] fields = line.split("\\|", -1);
+            if (fields.length != 3 && fields.length != 5) {
+                System.err.println("Corpus line " + (i + 1) + ": expected mode|seed|words|nodes|layout");
+                return 1;
+            }
+            String mode = fields[0].trim();
+            int seed;
+            try {
+                seed = Integer.parseInt(fields[1].trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Corpus line " + (i + 1) + ": bad seed");
+                return 1;
+            }
+            List<String> wordList = new ArrayList<>();
+            for (String w : fields[2].split(",")) {
+                if (!w.isBlank()) wordList.add(w.trim().toUpperCase());
+            }
+
+            Generator gen = new Generator();
+            long start = System.nanoTime();
+            boolean ok;
+            switch (mode) {
+                case "random": ok = gen.generateRandom(wordList, seed); break;
+                case "backtrack": ok = gen.generateBacktrack(wordList); break;
+                default:
+                    System.err.println("Corpus line " + (i + 1) + ": unknown mode " + mode);
+                    return 1;
+            }
+            totalNanos += System.nanoTime() - start;
+            String nodes = Long.toString(gen.nodes);
+            String layout = ok ? formatLayout(gen.placed) : "-";
+            cases++;
+
+            if (record) {
+                out.add(String.join("|", fields[0], fields[1], fields[2], nodes, layout));
+            } else if (fields.length != 5) {
+                System.err.println("Corpus line " + (i + 1) + ": no expected result (run --record-corpus)");
+                failures++;
+            } else {
+                if (!fields[3].trim().equals(nodes)) {
+                    System.err.println("Corpus line " + (i + 1) + ": expected " + fields[3].trim() + " nodes, got " + nodes);
+                }
+                if (!fields[4].trim().equals(layout)) {
+                    System.err.println("Corpus line " + (i + 1) + ": expected " + fields[4].trim() + ", got " + layout);
+                }
+                if (!fields[3].trim().equals(nodes) || !fields[4].trim().equals(layout)) failures++;
+            }
+        }
+
+        if (record) {
+            try {
+                Files.write(path, out, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println(path + ": " + e.getMessage());
+                return 1;
+            }
+            System.out.printf("%d cases recorded in %.1f ms%n", cases, totalNanos / 1e6);
+            return 0;
+        }
+        System.out.printf("%d cases replayed in %.1f ms, %d changed%n", cases, totalNanos / 1e6, failures);
+        return failures == 0 ? 0 : 1;
+    }
+
+    // Catalog placement syntax: WORD row col DIR;...
+    private static List<Placement> parseLayout(String text) throws IOException {
+        List<Placement> layout = new ArrayList<>();
+        for (String entry : text.split(";")) {
+            if (entry.isBlank()) continue;
+            String[] parts = entry.trim().split("\\s+");
+            try {
+                layout.add(new Placement(parts[0].toUpperCase(), Integer.parseInt(parts[1]),
+                    Integer.parseInt(parts[2]), Direction.valueOf(parts[3].toUpperCase())));
+            } catch (RuntimeException e) {
+                throw new IOException("Bad placement '" + entry.trim() + "'");
+            }
+        }
+        return layout;
+    }
+
+    private static String formatLayout(List<Placement> layout) {
+        StringBuilder sb = new StringBuilder();
+        for (Placement p : layout) {
+            if (sb.length() > 0) sb.append(';');
+            sb.append(p.word).append(' ').append(p.row).append(' ').append(p.col).append(' ').append(p.dir);
+        }
+        return sb.toString();
+    }
+
+    // TYPING LATENCY HARNESS
+    // Replays a keystroke stream into a headless grid and reports per-keystroke latency: from
+    // posting a key's pressed/typed/released events until the EDT has run everything they
+    // caused, including work they re-post with invokeLater. A stream file starts with
+    // "layout WORD row col DIR;..." followed by one "row col KEY" line per keystroke, KEY being
+    // a letter or BACK_SPACE, TAB, LEFT, RIGHT, UP or DOWN. Without one, a generated puzzle is
+    // typed in over and over, with the odd typo corrected, and cleared after each pass.
+    private static final int STRESS_WARMUP = 2_000;
+    private static final int STRESS_KEYSTROKES = 20_000;
+
+    private static int typingStress(Path streamFile) {
+        System.setProperty("java.awt.headless", "true");
+        List<Placement> layout = null;
+        List<int[]> keys = null; // row, col, key code, key char
+        if (streamFile != null) {
+            try {
+                keys = new ArrayList<>();
+                for (String line : Files.readAllLines(streamFile, StandardCharsets.UTF_8)) {
+                    if (line.isBlank() || line.startsWith("#")) continue;
+                    if (line.startsWith("layout ")) {
+                        layout = parseLayout(line.substring("layout ".length()));
+                    } else {
+                        keys.add(parseKeystroke(line.trim()));
+                    }
+                }
+                if (layout == null) throw new IOException("No layout line");
+                if (keys.isEmpty()) throw new IOException("No keystrokes");
+            } catch (IOException e) {
+                System.err.println(streamFile + ": " + e.getMessage());
+                return 1;
+            }
+        }
+
+        JavaCrosswordGenerator app;
+        Thread edt;
+        try {
+            List<Placement> fixedLayout = layout;
+            JavaCrosswordGenerator[] built = new JavaCrosswordGenerator[1];
+            Thread[] edtThread = new Thread[1];
+            SwingUtilities.invokeAndWait(() -> {
+                // Headless components never own focus, so deliver key events straight to their source
+                KeyboardFocusManager.setCurrentKeyboardFocusManager(new DefaultKeyboardFocusManager() {
+                    @Override
+                    public boolean dispatchEvent(AWTEvent e) {
+                        if (!(e instanceof java.awt.event.KeyEvent)) return super.dispatchEvent(e);
+                        redispatchEvent(((java.awt.event.KeyEvent) e).getComponent(), e);
+                        return true;
+                    }
+                });
+                JavaCrosswordGenerator a = new JavaCrosswordGenerator();
+                a.autosaveEnabled = false;
+                a.setupDictionaryAndClues();
+                a.rebuildGridUI();
+                if (fixedLayout != null) {
+                    a.placed.addAll(fixedLayout);
+                    for (Placement p : fixedLayout) a.applyPlacementToSolution(p);
+                } else {
+                    Generator gen = new Generator();
+                    for (int seed = 1; !gen.generateRandom(a.pickGenerationWords(seed), seed); seed++) { }
+                    a.adoptLayout(gen);
+                }
+                a.updateUIFromSolution(false);
+                built[0] = a;
+                edtThread[0] = Thread.currentThread();
+            });
+            app = built[0];
+            edt = edtThread[0];
+        } catch (InterruptedException | java.lang.reflect.InvocationTargetException e) {
+            System.err.println("Could not build the grid: " + e);
+            return 1;
+        }
+        if (keys == null) keys = syntheticKeystrokes(app.placed);
+
+        EventQueue queue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        int warmup = Math.min(STRESS_WARMUP, keys.size() / 10);
+        long[] latencies = new long[keys.size() - warmup];
+        long allocatedBefore = 0;
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                if (i == warmup) allocatedBefore = threads.getThreadAllocatedBytes(edt.threadId());
+                int[] k = keys.get(i);
+                JTextField tf = app.cellFields[k[0]][k[1]];
+                long start = System.nanoTime();
+                long when = System.currentTimeMillis();
+                queue.postEvent(new java.awt.event.KeyEvent(tf, java.awt.event.KeyEvent.KEY_PRESSED, when, 0, k[2], (char) k[3]));
+                if (k[3] != java.awt.event.KeyEvent.CHAR_UNDEFINED) {
+                    queue.postEvent(new java.awt.event.KeyEvent(tf, java.awt.event.KeyEvent.KEY_TYPED, when, 0,
+                        java.awt.event.KeyEvent.VK_UNDEFINED, (char) k[3]));
+                }
+                queue.postEvent(new java.awt.event.KeyEvent(tf, java.awt.event.KeyEvent.KEY_RELEASED, when, 0, k[2], (char) k[3]));
+                SwingUtilities.invokeAndWait(() -> { }); // Runs after the key events...
+                SwingUtilities.invokeAndWait(() -> { }); // ...and after anything they posted
+                if (i >= warmup) latencies[i - warmup] = System.nanoTime() - start;
+            }
+        } catch (InterruptedException | java.lang.reflect.InvocationTargetException e) {
+            System.err.println("Replay failed: " + e);
+            return 1;
+        }
+        long allocated = threads.getThreadAllocatedBytes(edt.threadId()) - allocatedBefore;
+
+        Arrays.sort(latencies);
+        System.out.printf("%,d keystrokes: p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us; %,d EDT bytes/keystroke%n",
+            latencies.length, percentile(latencies, 50) / 1e3, percentile(latencies, 90) / 1e3,
+            percentile(latencies, 99) / 1e3, latencies[latencies.length - 1] / 1e3, allocated / latencies.length);
+        return 0;
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        return sorted[Math.min(sorted.length - 1, (int) ((long) sorted.length * p / 100))];
+    }
+
+    private static int[] parseKeystroke(String line) throws IOException {
+        String[] parts = line.split("\\s+");
+        try {
+            int row = Integer.parseInt(parts[0]), col = Integer.parseInt(parts[1]);
+            if (row < 0 || row >= ROWS || col < 0 || col >= COLS) throw new IOException("Cell out of range: " + line);
+            String key = parts[2];
+            if (key.length() == 1 && Character.isLetter(key.charAt(0))) return letterKey(row, col, key.charAt(0));
+            int code = switch (key) {
+                case "BACK_SPACE" -> java.awt.event.KeyEvent.VK_BACK_SPACE;
+                case "TAB" -> java.awt.event.KeyEvent.VK_TAB;
+                case "LEFT" -> java.awt.event.KeyEvent.VK_LEFT;
+                case "RIGHT" -> java.awt.event.KeyEvent.VK_RIGHT;
+                case "UP" -> java.awt.event.KeyEvent.VK_UP;
+                case "DOWN" -> java.awt.event.KeyEvent.VK_DOWN;
+                default -> throw new IOException("Unknown key: " + line);
+            };
+            // Backspace and tab also produce a typed character, as they do from a real keyboard
+            int ch = (code == java.awt.event.KeyEvent.VK_BACK_SPACE) ? '\b'
+                : (code == java.awt.event.KeyEvent.VK_TAB) ? '\t' : java.awt.event.KeyEvent.CHAR_UNDEFINED;
+            return new int[] { row, col, code, ch };
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Bad keystroke: " + line);
+        }
+    }
+
+    private static int[] letterKey(int row, int col, char ch) {
+        return new int[] { row, col, java.awt.event.KeyEvent.VK_A + (Character.toUpperCase(ch) - 'A'), Character.toLowerCase(ch) };
+    }
+
+    private static List<int[]> syntheticKeystrokes(List<Placement> layout) {
+        List<int[]> keys = new ArrayList<>();
+        Random random = new Random(0);
+        while (keys.size() < STRESS_WARMUP + STRESS_KEYSTROKES) {
+            Set<Integer> typed = new LinkedHashSet<>();
+            for (Placement p : layout) {
+                for (int i = 0; i < p.word.length(); i++) {
+                    int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
+                    int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
+                    if (random.nextInt(8) == 0) {
+                        keys.add(letterKey(r, c, (char) ('A' + random.nextInt(26))));
+                        keys.add(new int[] { r, c, java.awt.event.KeyEvent.VK_BACK_SPACE, '\b' });
+                    }
+                    keys.add(letterKey(r, c, p.word.charAt(i)));
+                    typed.add(r * COLS + c);
+                }
+            }
+            for (int cell : typed) {
+                keys.add(new int[] { cell / COLS, cell % COLS, java.awt.event.KeyEvent.VK_BACK_SPACE, '\b' });
+            }
+        }
+        return keys.subList(0, STRESS_WARMUP + STRESS_KEYSTROKES);
+    }
+
+    // Null if the dictionary admits exactly one fill, otherwise what is wrong
+    private static String checkUniqueFill(List<Placement> layout, Trie dictionary) {
+        int fills = new FillCounter(layout, dictionary).count(2);
+        if (fills == 0) return "No dictionary fill exists (are all answers in the dictionary?)";
+        if (fills > 1) return "More than one valid fill; the answers are ambiguous";
+        return null;
+    }
+
+    // Same rules canPlaceWord enforces during generation, applied to a finished layout
+    private static List<String> validateLayout(List<Placement> layout) {
+        List<String> problems = new ArrayList<>();
+        if (layout.isEmpty()) return List.of("Level has no words");
+        char[][] grid = new char[ROWS][COLS];
+        int[][] coverage = new int[ROWS][COLS];
+        for (char[] row : grid) Arrays.fill(row, '#');
+
+        for (Placement p : layout) {
+            if (!fitsGrid(p)) {
+                problems.add(p.word + " does not fit the grid");
+                continue;
+            }
+            for (int i = 0; i < p.word.length(); i++) {
+                int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
+                int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
+                if (grid[r][c] != '#' && grid[r][c] != p.word.charAt(i)) {
+                    problems.add(String.format("%s conflicts with '%c' at [%d,%d]", p.word, grid[r][c], r, c));
+                }
+                grid[r][c] = p.word.charAt(i);
+                coverage[r][c]++;
+            }
+        }
+        if (!problems.isEmpty()) return problems;
+
+        for (Placement p : layout) {
+            int len = p.word.length();
+            boolean across = p.dir == Direction.ACROSS;
+            int beforeR = across ? p.row : p.row - 1, beforeC = across ? p.col - 1 : p.col;
+            int afterR = across ? p.row : p.row + len, afterC = across ? p.col + len : p.col;
+            if (beforeR >= 0 && beforeC >= 0 && grid[beforeR][beforeC] != '#') {
+                problems.add(p.word + " runs into a letter before its start");
+            }
+            if (afterR < ROWS && afterC < COLS && grid[afterR][afterC] != '#') {
+                problems.add(p.word + " runs into a letter after its end");
+            }
+            for (int i = 0; i < len; i++) {
+                int r = across ? p.row : p.row + i;
+                int c = across ? p.col + i : p.col;
+                if (coverage[r][c] > 1) continue; // Crossing cell
+                boolean touches = across
+                    ? (r > 0 && grid[r-1][c] != '#') || (r < ROWS-1 && grid[r+1][c] != '#')
+                    : (c > 0 && grid[r][c-1] != '#') || (c < COLS-1 && grid[r][c+1] != '#');
+                if (touches) problems.add(String.format("%s touches a neighbouring word at [%d,%d]", p.word, r, c));
+            }
+        }
+
+        if (!isConnected(layout)) problems.add("Words do not form a single connected puzzle");
+        return problems;
+    }
+
+    private static boolean isConnected(List<Placement> layout) {
+        if (layout.isEmpty()) return true;
+        boolean[] seen = new boolean[layout.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        seen[0] = true;
+        int reached = 1;
+        while (!queue.isEmpty()) {
+            Placement p = layout.get(queue.poll());
+            for (int j = 0; j < layout.size(); j++) {
+                if (!seen[j] && crosses(p, layout.get(j))) {
+                    seen[j] = true;
+                    reached++;
+                    queue.add(j);
+                }
+            }
+        }
+        return reached == layout.size();
+    }
+
+    private static boolean crosses(Placement a, Placement b) {
+        if (a.dir == b.dir) return false;
+        Placement across = (a.dir == Direction.ACROSS) ? a : b;
+        Placement down = (a.dir == Direction.ACROSS) ? b : a;
+        return across.coversCell(across.row, down.col) && down.coversCell(across.row, down.col);
+    }
+
+    private void clearGrid() {
+        for (int r = 0; r < ROWS; r++) {
+            Arrays.fill(solution[r], '#');
+        }
+    }
+
+    // HELPER CLASSES
+    // Every letter-sharing (indexA, indexB) pair for every ordered pair of words in a list,
+    // packed as indexA << 16 | indexB. Built once per generation run. A word listed twice
+    // pairs with itself, since its two copies may cross. Words too long for the grid get no pairs.
+    private static class CrossingTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final int[][][] pairs;
+        private final List<String> uncrossable = new ArrayList<>();
+
+        CrossingTable(List<String> wordList) {
+            Map<String, Integer> copies = new LinkedHashMap<>();
+            for (String w : wordList) copies.merge(w, 1, Integer::sum);
+            List<String> distinct = new ArrayList<>(copies.keySet());
+            for (String w : distinct) ids.put(w, ids.size());
+            int n = distinct.size(), maxLength = Math.max(ROWS, COLS);
+            pairs = new int[n][n][];
+            int[] buffer = new int[maxLength * maxLength];
+            for (int a = 0; a < n; a++) {
+                String wa = distinct.get(a);
+                boolean crossesAny = false;
+                for (int b = 0; b < n; b++) {
+                    String wb = distinct.get(b);
+                    int count = 0;
+                    if ((a != b || copies.get(wa) > 1) && wa.length() <= maxLength && wb.length() <= maxLength) {
+                        for (int i = 0; i < wa.length(); i++) {
+                            for (int j = 0; j < wb.length(); j++) {
+                                if (wa.charAt(i) == wb.charAt(j)) buffer[count++] = i << 16 | j;
+                            }
+                        }
+                    }
+                    pairs[a][b] = Arrays.copyOf(buffer, count);
+                    crossesAny |= count > 0;
+                }
+                if (!crossesAny && wa.length() <= maxLength) uncrossable.add(wa);
+            }
+        }
+
+        int size() {
+            return pairs.length;
+        }
+
+        // Null if either word is not in the table
+        int[] between(String word, String other) {
+            Integer a = ids.get(word), b = ids.get(other);
+            return (a == null || b == null) ? null : pairs[a][b];
+        }
+
+        List<String> uncrossable() {
+            return Collections.unmodifiableList(uncrossable);
+        }
+    }
+
+    // Search state for one generation run. Owns its own grid so it can run on any thread
+    // without touching the Swing-side solution.
+    private static class Generator {
+        interface ProgressListener {
+            void progress(int wordsPlaced, int wordsTotal, long nodesExplored);
+        }
+
+        private static final int PROGRESS_INTERVAL = 256; // Nodes between progress callbacks
+        private static final double OPTIMIZE_START_TEMPERATURE = 20.0;
+        private static final int OPTIMIZE_TOP_CANDIDATES = 5;
+
+        final char[][] solution = new char[ROWS][COLS];
+        final List<Placement> placed = new ArrayList<>();
+        long nodes = 0;
+        private volatile ProgressListener progressListener; // Can be attached mid-search
+        private long deadline;
+        private boolean hasDeadline;
+        private final GeneratorStats stats = STATS_ENABLED ? new GeneratorStats() : null;
+        private CrossingTable crossings; // For the current word list; null means scan every cell
+
+        Generator() {
+            clear();
+        }
+
+        void setProgressListener(ProgressListener listener) {
+            this.progressListener = listener;
+        }
+
+        // Searches past this System.nanoTime() value abort with a CancellationException
+        void setDeadline(long deadlineNanos) {
+            this.deadline = deadlineNanos;
+            this.hasDeadline = true;
+        }
+
+        void clear() {
+            for (int r = 0; r < ROWS; r++) {
+                Arrays.fill(solution[r], '#');
+            }
+            placed.clear();
+        }
+
+        // Builds the crossing table for a run. Returns false if, with more than one word, some
+        // word shares no letter with any other and so can never be connected.
+        private boolean indexCrossings(List<String> wordList) {
+            crossings = new CrossingTable(wordList);
+            return wordList.size() < 2 || crossings.uncrossable().isEmpty();
+        }
+
+        // Words in the current list that cannot cross any other word
+        List<String> uncrossable() {
+            return (crossings == null) ? List.of() : crossings.uncrossable();
+        }
+
+        // Folds this run's counters into the process-wide totals
+        private boolean finishRun(boolean result) {
+            if (STATS_ENABLED) {
+                stats.runs = 1;
+                stats.nodes = nodes;
+                if (result) stats.successes = 1;
+                GeneratorStats.TOTAL.merge(stats);
+                stats.reset();
+            }
+            return result;
+        }
+
+        // Ends a run that gave up before searching; counted by run, apart from placement rejections
+        private boolean rejectRun(int reason) {
+            if (STATS_ENABLED) stats.rejectedRuns[reason]++;
+            return finishRun(false);
+        }
+
+        // Folds a follow-up pass over an existing layout (optimize) into the totals without
+        // counting it as another run
+        private void finishPass() {
+            if (STATS_ENABLED) {
+                GeneratorStats.TOTAL.merge(stats);
+                stats.reset();
+            }
+        }
+
+        void applyPlacement(Placement p) {
+            for (int i = 0; i < p.word.length(); i++) {
+                int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
+                int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
+                solution[r][c] = p.word.charAt(i);
+            }
+        }
+
+        // Called once per search node: counts it, honours cancellation and reports progress
+        private void visit(int wordsTotal) {
+            nodes++;
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Generation cancelled");
+            if (hasDeadline && System.nanoTime() - deadline > 0) throw new CancellationException("Time budget exceeded");
+            if (nodes % PROGRESS_INTERVAL == 0) {
+                ProgressListener listener = progressListener;
+                if (listener != null) listener.progress(placed.size(), wordsTotal, nodes);
+            }
+        }
+
+        // CONSTRAINT SATISFACTION
+        private boolean canPlaceWord(String word, int row, int col, Direction dir) {
+            return canPlaceWord(word, row, col, dir, true);
+        }
+
+        private boolean canPlaceWord(String word, int row, int col, Direction dir, boolean requireIntersection) {
+            if (STATS_ENABLED) stats.placementChecks++;
+            if (dir == Direction.ACROSS) {
+                if (col + word.length() > COLS) return reject(GeneratorStats.BOUNDS);
+                if (col > 0 && solution[row][col-1] != '#') return reject(GeneratorStats.END_CAP); // Check left
+                if (col + word.length() < COLS && solution[row][col + word.length()] != '#') return reject(GeneratorStats.END_CAP); // Check right
+            } else {
+                if (row + word.length() > ROWS) return reject(GeneratorStats.BOUNDS);
+                if (row > 0 && solution[row-1][col] != '#') return reject(GeneratorStats.END_CAP); // Check above
+                if (row + word.length() < ROWS && solution[row + word.length()][col] != '#') return reject(GeneratorStats.END_CAP); // Check below
+            }
+        
+            int intersections = 0;
+            char previous = '#';
+            for (int i = 0; i < word.length(); i++) {
+                int r = (dir == Direction.ACROSS) ? row : row + i;
+                int c = (dir == Direction.ACROSS) ? col + i : col;
+            
+                char existing = solution[r][c];
+                if (existing != '#') {
+                    if (existing != word.charAt(i)) return reject(GeneratorStats.LETTER_CONFLICT);
+                    // Two filled cells in a row means we are lying on top of a word in the same direction
+                    if (previous != '#') return reject(GeneratorStats.OVERLAP);
+                    intersections++;
+                }
+                previous = existing;
+            
+                // Check perpendicular conflicts
+                if (dir == Direction.ACROSS) {
+                    if (r > 0 && solution[r-1][c] != '#' && existing == '#') return reject(GeneratorStats.ADJACENCY);
+                    if (r < ROWS-1 && solution[r+1][c] != '#' && existing == '#') return reject(GeneratorStats.ADJACENCY);
+                } else {
+                    if (c > 0 && solution[r][c-1] != '#' && existing == '#') return reject(GeneratorStats.ADJACENCY);
+                    if (c < COLS-1 && solution[r][c+1] != '#' && existing == '#') return reject(GeneratorStats.ADJACENCY);
+                }
+            }
+        
+            return placed.isEmpty() || !requireIntersection || intersections > 0
+                || reject(GeneratorStats.NO_INTERSECTION);
+        }
+
+        // The JIT reduces this to "return false" when stats are disabled
+        private boolean reject(int reason) {
+            if (STATS_ENABLED) stats.rejections[reason]++;
+            return false;
+        }
+    
+        private List<Position> findValidPlacements(String word) {
+            long start = STATS_ENABLED ? System.nanoTime() : 0L;
+            List<Position> positions = new ArrayList<>();
+            boolean[] candidates = crossingCandidates(word);
+            for (int r = 0; r < ROWS; r++) {
+                for (int c = 0; c < COLS; c++) {
+                    for (Direction dir : Direction.values()) {
+                        if (candidates != null && !candidates[(r * COLS + c) * 2 + dir.ordinal()]) continue;
+                        if (canPlaceWord(word, r, c, dir)) {
+                            int score = calculatePlacementScore(word, r, c, dir);
+                            positions.add(new Position(r, c, dir, score));
+                        }
+                    }
+                }
+            }
+            positions.sort((a, b) -> Integer.compare(b.score, a.score));
+            if (STATS_ENABLED) stats.recordCandidates(placed.size(), positions.size(), System.nanoTime() - start);
+            return positions;
+        }
+    
+        // Marks the (row, col, dir) starts at which the word crosses a placed word on a shared
+        // letter; every valid placement after the first is one of these. Visited in scan order,
+        // so the candidate list comes out exactly as a full-grid scan would produce it.
+        // Null when the first word is being placed or a word is missing from the table.
+        private boolean[] crossingCandidates(String word) {
+            if (crossings == null || placed.isEmpty()) return null;
+            boolean[] marks = new boolean[ROWS * COLS * 2];
+            for (Placement p : placed) {
+                int[] pairs = crossings.between(word, p.word);
+                if (pairs == null) return null;
+                for (int pair : pairs) {
+                    int i = pair >>> 16, j = pair & 0xFFFF;
+                    int r = (p.dir == Direction.ACROSS) ? p.row : p.row + j;
+                    int c = (p.dir == Direction.ACROSS) ? p.col + j : p.col;
+                    Direction dir = (p.dir == Direction.ACROSS) ? Direction.DOWN : Direction.ACROSS;
+                    if (dir == Direction.ACROSS) c -= i; else r -= i;
+                    if (r >= 0 && c >= 0) marks[(r * COLS + c) * 2 + dir.ordinal()] = true;
+                }
+            }
+            return marks;
+        }
+
+        private void removeWordFromGrid(Placement p) {
+            for (int i = 0; i < p.word.length(); i++) {
+                int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
+                int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
+            
+                boolean usedByOther = false;
+                for (Placement other : placed) {
+                    if (other != p && other.coversCell(r, c)) {
+                        usedByOther = true;
+                        break;
+                    }
+                }
+                if (!usedByOther) {
+                    solution[r][c] = '#';
+                }
+            }
+        }
+
+        // BACKTRACKING
+        boolean generateBacktrack(List<String> wordsToPlace) {
+            clear();
+            nodes = 0;
+        
+            List<String> sorted = new ArrayList<>(wordsToPlace);
+            sorted.sort((a, b) -> Integer.compare(b.length(), a.length()));
+            if (!indexCrossings(sorted)) return rejectRun(GeneratorStats.UNCROSSABLE);
+        
+            return finishRun(backtrack(sorted, 0));
+        }
+    
+        private boolean backtrack(List<String> words, int idx) {
+            visit(words.size());
+            if (idx >= words.size()) return true;
+        
+            String word = words.get(idx);
+            List<Position> positions = findValidPlacements(word);
+        
+            for (Position pos : positions) {
+                Placement p = new Placement(word, pos.row, pos.col, pos.dir);
+                placed.add(p);
+                applyPlacement(p);
+            
+                if (backtrack(words, idx + 1)) return true;
+            
+                placed.remove(p);
+                removeWordFromGrid(p);
+            }
+        
+            return false;
+        }
+
+        // HEURISTICS
+        private int calculatePlacementScore(String word, int row, int col, Direction dir) {
+            int score = 0;
+        
+            int intersections = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int r = (dir == Direction.ACROSS) ? row : row + i;
+                int c = (dir == Direction.ACROSS) ? col + i : col;
+                if (solution[r][c] != '#') intersections++;
+            }
+            score += intersections * 10;
+        
+            int centerRow = ROWS / 2;
+            int centerCol = COLS / 2;
+            int distFromCenter = Math.abs(row - centerRow) + Math.abs(col - centerCol);
+            score += Math.max(0, 20 - distFromCenter);
+        
+            score += word.length() * 2;
+        
+            int vowels = 0;
+            for (char c : word.toCharArray()) {
+                if ("AEIOU".indexOf(c) >= 0) vowels++;
+            }
+            score += vowels * 3;
+        
+            if (!placed.isEmpty()) {
+                long across = placed.stream().filter(p -> p.dir == Direction.ACROSS).count();
+                long down = placed.stream().filter(p -> p.dir == Direction.DOWN).count();
+                if ((dir == Direction.ACROSS && across < down) || (dir == Direction.DOWN && down < across)) {
+                    score += 5;
+                }
+            }
+        
+            return score;
+        }
+
+        // MAXIMUM SUBSET
+        // Places the most valuable interlocking subset of an oversized word list.
+        // Greedy seeding, then large-neighbourhood search: keep a prefix of the best layout
+        // (connected, since greedy placements always cross an earlier word), or nothing,
+        // and greedily refill from a value-weighted random order until the budget runs out.
+        SubsetResult generateMaxSubset(List<String> candidates, ToIntFunction<String> value, int maxWords,
+                                       long budgetNanos, Random random) {
+            long deadline = System.nanoTime() + budgetNanos;
+            nodes = 0;
+            List<String> pool = new ArrayList<>(new LinkedHashSet<>(candidates));
+            pool.sort(Comparator.comparingInt(value).reversed());
+            // Words that cross nothing could only ever be placed alone
+            if (!indexCrossings(pool) && maxWords > 1) pool.removeAll(crossings.uncrossable());
+            int target = Math.min(maxWords, pool.size());
+            int ceiling = 0; // Value of the best conceivable subset, to stop early
+            for (int i = 0; i < target; i++) ceiling += value.applyAsInt(pool.get(i));
+
+            List<Placement> best = greedyFill(List.of(), pool, target, null);
+            int bestValue = valueOf(best, value);
+            int bestScore = layoutScore();
+            while (bestValue < ceiling && System.nanoTime() < deadline) {
+                if (Thread.currentThread().isInterrupted()) throw new CancellationException("Generation cancelled");
+                int keep = random.nextInt(2) == 0 ? 0 : random.nextInt(best.size() + 1);
+                List<Placement> attempt = greedyFill(best.subList(0, keep), weightedOrder(pool, value, random),
+                    target, random);
+                int attemptValue = valueOf(attempt, value);
+                int attemptScore = layoutScore();
+                if (attemptValue > bestValue || (attemptValue == bestValue && attemptScore > bestScore)) {
+                    best = attempt;
+                    bestValue = attemptValue;
+                    bestScore = attemptScore;
+                }
+            }
+
+            clear();
+            Set<String> used = new HashSet<>();
+            for (Placement p : best) {
+                placed.add(p);
+                applyPlacement(p);
+                used.add(p.word);
+            }
+            List<String> dropped = new ArrayList<>();
+            for (String w : pool) {
+                if (!used.contains(w)) dropped.add(w);
+            }
+            if (pool.size() < crossings.size()) dropped.addAll(crossings.uncrossable());
+            List<String> placedWords = new ArrayList<>();
+            for (Placement p : best) placedWords.add(p.word);
+            finishRun(!best.isEmpty());
+            return new SubsetResult(placedWords, dropped, bestValue);
+        }
+
+        private List<Placement> greedyFill(List<Placement> seed, List<String> order, int target, Random random) {
+            clear();
+            Set<String> used = new HashSet<>();
+            for (Placement p : seed) {
+                placed.add(p);
+                applyPlacement(p);
+                used.add(p.word);
+            }
+            for (String word : order) {
+                if (placed.size() >= target) break;
+                if (used.contains(word)) continue;
+                visit(target);
+                List<Position> positions = findValidPlacements(word);
+                if (positions.isEmpty()) continue;
+                Position pos = positions.get(random == null ? 0 : random.nextInt(Math.min(3, positions.size())));
+                Placement p = new Placement(word, pos.row, pos.col, pos.dir);
+                placed.add(p);
+                applyPlacement(p);
+                used.add(word);
+            }
+            return new ArrayList<>(placed);
+        }
+
+        private static List<String> weightedOrder(List<String> pool, ToIntFunction<String> value, Random random) {
+            double[] keys = new double[pool.size()];
+            Integer[] order = new Integer[pool.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = value.applyAsInt(pool.get(i)) * (0.5 + random.nextDouble());
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(keys[b], keys[a]));
+            List<String> result = new ArrayList<>(pool.size());
+            for (int i : order) result.add(pool.get(i));
+            return result;
+        }
+
+        private static int valueOf(List<Placement> layout, ToIntFunction<String> value) {
+            int total = 0;
+            for (Placement p : layout) total += value.applyAsInt(p.word);
+            return total;
+        }
+
+        // SYMMETRY AND DENSITY
+        // 180-degree rotational symmetry: every word is placed together with a same-length
+        // partner in the rotated slot. ROWS and COLS are even, so no slot is its own partner.
+        // Density (filled cells / bounding box) is pruned with an optimistic bound at every node.
+        // The first pair is parallel and apart, so the next word, whichever it is, must cross both
+        // of them (its mirror then does too); every later word crosses that one component, which
+        // keeps each partial layout connected instead of finding a split once the grid is full.
+        // That makes it a heuristic: a layout whose halves only meet through later pairs is
+        // never tried, so false does not prove that no symmetric layout exists.
+        boolean generateSymmetric(List<String> wordsToPlace, double targetDensity) {
+            clear();
+            nodes = 0;
+            List<String> sorted = new ArrayList<>(wordsToPlace);
+            sorted.sort((a, b) -> Integer.compare(b.length(), a.length()));
+
+            Map<Integer, Integer> perLength = new HashMap<>();
+            int letters = 0;
+            for (String w : sorted) {
+                perLength.merge(w.length(), 1, Integer::sum);
+                letters += w.length();
+            }
+            for (int count : perLength.values()) {
+                if (count % 2 != 0) return rejectRun(GeneratorStats.UNPAIRED); // Some word has no partner
+            }
+            if (sorted.size() == 2) return rejectRun(GeneratorStats.UNPAIRED); // One pair never touches itself
+            if (!indexCrossings(sorted)) return rejectRun(GeneratorStats.UNCROSSABLE);
+            return finishRun(symmetricBacktrack(new LinkedList<>(sorted), letters, targetDensity, sorted.size()));
+        }
+
+        private boolean symmetricBacktrack(LinkedList<String> remaining, int remainingLetters, double targetDensity,
+                                           int wordsTotal) {
+            visit(wordsTotal);
+            if (remaining.isEmpty()) return density(0) >= targetDensity;
+
+            if (placed.size() != 2) {
+                String word = remaining.removeFirst();
+                if (placePair(word, remaining, remainingLetters, targetDensity, wordsTotal)) return true;
+                remaining.addFirst(word);
+                return false;
+            }
+            // Any word may be the one that bridges the first pair, not just the next longest
+            Set<String> bridges = new HashSet<>();
+            for (int w = 0; w < remaining.size(); w++) {
+                String word = remaining.remove(w);
+                if (bridges.add(word) && placePair(word, remaining, remainingLetters, targetDensity, wordsTotal)) {
+                    return true;
+                }
+                remaining.add(w, word);
+            }
+            return false;
+        }
+
+        // Places the word and, in its mirrored slot, each same-length partner in turn
+        private boolean placePair(String word, LinkedList<String> remaining, int remainingLetters,
+                                  double targetDensity, int wordsTotal) {
+            int len = word.length();
+            for (Position pos : findValidPlacements(word)) {
+                Placement p = new Placement(word, pos.row, pos.col, pos.dir);
+                if (placed.size() == 2 && !(crosses(p, placed.get(0)) && crosses(p, placed.get(1)))) {
+                    reject(GeneratorStats.NO_INTERSECTION); // Would leave the two halves apart
+                    continue;
+                }
+                placed.add(p);
+                applyPlacement(p);
+                Placement mirror = mirrorOf(p);
+
+                Set<String> tried = new HashSet<>();
+                for (int i = 0; i < remaining.size(); i++) {
+                    String partner = remaining.get(i);
+                    if (partner.length() != len || !tried.add(partner)) continue;
+                    // Only the very first pair may sit apart; later mirrors cross mirrored words
+                    if (!canPlaceWord(partner, mirror.row, mirror.col, mirror.dir, placed.size() > 1)) continue;
+                    Placement q = new Placement(partner, mirror.row, mirror.col, mirror.dir);
+                    placed.add(q);
+                    applyPlacement(q);
+                    remaining.remove(i);
+
+                    int left = remainingLetters - 2 * len;
+                    if (placed.size() == 2 && !canBridge(p, q, remaining)) {
+                        reject(GeneratorStats.NO_INTERSECTION);
+                    } else if (density(left) < targetDensity) {
+                        reject(GeneratorStats.DENSITY);
+                    } else if (symmetricBacktrack(remaining, left, targetDensity, wordsTotal)) {
+                        return true;
+                    }
+
+                    remaining.add(i, partner);
+                    placed.remove(q);
+                    removeWordFromGrid(q);
+                }
+
+                placed.remove(p);
+                removeWordFromGrid(p);
+            }
+            return false;
+        }
+
+        // Whether some word could run across the gap between two parallel words, landing on a
+        // matching letter of each. Letters only; the full placement checks happen when it is tried.
+        private static boolean canBridge(Placement a, Placement b, List<String> words) {
+            boolean across = a.dir == Direction.ACROSS;
+            Placement near = (across ? a.row <= b.row : a.col <= b.col) ? a : b;
+            Placement far = (near == a) ? b : a;
+            int nearStart = across ? near.col : near.row, farStart = across ? far.col : far.row;
+            int gap = across ? far.row - near.row : far.col - near.col;
+            int from = Math.max(nearStart, farStart);
+            int to = Math.min(nearStart + near.word.length(), farStart + far.word.length());
+            for (String w : words) {
+                for (int i = 0; i + gap < w.length(); i++) {
+                    for (int x = from; x < to; x++) {
+                        if (w.charAt(i) == near.word.charAt(x - nearStart)
+                                && w.charAt(i + gap) == far.word.charAt(x - farStart)) return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static Placement mirrorOf(Placement p) {
+            int len = p.word.length();
+            return (p.dir == Direction.ACROSS)
+                ? new Placement(p.word, ROWS - 1 - p.row, COLS - p.col - len, Direction.ACROSS)
+                : new Placement(p.word, ROWS - p.row - len, COLS - 1 - p.col, Direction.DOWN);
+        }
+
+        // Filled cells over bounding-box area, assuming extraLetters more letters all land inside the box.
+        // The box only grows and each letter fills at most one new cell, so this bounds the final density.
+        private double density(int extraLetters) {
+            if (placed.isEmpty()) return 1.0;
+            int minRow = ROWS, minCol = COLS, maxRow = 0, maxCol = 0;
+            for (Placement p : placed) {
+                minRow = Math.min(minRow, p.row);
+                minCol = Math.min(minCol, p.col);
+                maxRow = Math.max(maxRow, (p.dir == Direction.ACROSS) ? p.row : p.row + p.word.length() - 1);
+                maxCol = Math.max(maxCol, (p.dir == Direction.ACROSS) ? p.col + p.word.length() - 1 : p.col);
+            }
+            int filled = 0;
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol; c++) {
+                    if (solution[r][c] != '#') filled++;
+                }
+            }
+            return (double) (filled + extraLetters) / ((maxRow - minRow + 1) * (maxCol - minCol + 1));
+        }
+
+        // LOCAL SEARCH
+        // Simulated annealing over "pull one word out, re-place it elsewhere" moves.
+        // Stops at the time budget or iteration cap and leaves the best layout seen.
+        int optimize(Random random, long budgetNanos, int maxIterations) {
+            if (placed.size() < 2) return layoutScore();
+            if (crossings == null) {
+                List<String> layoutWords = new ArrayList<>();
+                for (Placement p : placed) layoutWords.add(p.word);
+                indexCrossings(layoutWords);
+            }
+            long start = System.nanoTime();
+            int current = layoutScore();
+            int best = current;
+            List<Placement> bestLayout = new ArrayList<>(placed);
+
+            for (int iter = 0; iter < maxIterations; iter++) {
+                long elapsed = System.nanoTime() - start;
+                if (elapsed >= budgetNanos) break;
+                if (Thread.currentThread().isInterrupted()) throw new CancellationException("Optimization cancelled");
+                double temperature = OPTIMIZE_START_TEMPERATURE * (1.0 - (double) elapsed / budgetNanos);
+
+                int idx = random.nextInt(placed.size());
+                Placement old = placed.remove(idx);
+                removeWordFromGrid(old);
+                if (!isConnected(placed)) {
+                    restore(idx, old);
+                    continue;
+                }
+                List<Position> positions = findValidPlacements(old.word);
+                if (positions.isEmpty()) {
+                    restore(idx, old);
+                    continue;
+                }
+                Position pos = positions.get(random.nextInt(Math.min(OPTIMIZE_TOP_CANDIDATES, positions.size())));
+                Placement moved = new Placement(old.word, pos.row, pos.col, pos.dir);
+                placed.add(idx, moved);
+                applyPlacement(moved);
+
+                int candidate = layoutScore();
+                int delta = candidate - current;
+                if (delta >= 0 || random.nextDouble() < Math.exp(delta / Math.max(temperature, 1e-3))) {
+                    current = candidate;
+                    if (current > best) {
+                        best = current;
+                        bestLayout = new ArrayList<>(placed);
+                    }
+                } else {
+                    placed.remove(idx);
+                    removeWordFromGrid(moved);
+                    restore(idx, old);
+                }
+            }
+
+            clear();
+            for (Placement p : bestLayout) {
+                placed.add(p);
+                applyPlacement(p);
+            }
+            finishPass();
+            return best;
+        }
+
+        private void restore(int idx, Placement p) {
+            placed.add(idx, p);
+            applyPlacement(p);
+        }
+
+        // Whole-layout quality: the calculatePlacementScore features plus interlock and density
+        int layoutScore() {
+            if (placed.isEmpty()) return 0;
+            int minRow = ROWS, minCol = COLS, maxRow = 0, maxCol = 0;
+            int letters = 0, across = 0, centerScore = 0;
+            for (Placement p : placed) {
+                minRow = Math.min(minRow, p.row);
+                minCol = Math.min(minCol, p.col);
+                maxRow = Math.max(maxRow, (p.dir == Direction.ACROSS) ? p.row : p.row + p.word.length() - 1);
+                maxCol = Math.max(maxCol, (p.dir == Direction.ACROSS) ? p.col + p.word.length() - 1 : p.col);
+                letters += p.word.length();
+                if (p.dir == Direction.ACROSS) across++;
+                centerScore += Math.max(0, 20 - Math.abs(p.row - ROWS / 2) - Math.abs(p.col - COLS / 2));
+            }
+            int filled = 0;
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol; c++) {
+                    if (solution[r][c] != '#') filled++;
+                }
+            }
+            int intersections = letters - filled; // Each shared cell is counted twice in letters
+            int area = (maxRow - minRow + 1) * (maxCol - minCol + 1);
+            int imbalance = Math.abs(2 * across - placed.size());
+            return intersections * 10 + (200 * filled) / area + centerScore - imbalance * 5;
+        }
+
+        // RANDOMIZATION
+        // Same seed and word list, same layout and node count on any JVM: java.util.Random and
+        // Collections.shuffle are fully specified, and the length sort is stable, so words of
+        // equal length keep their shuffled order. The only other draws are the candidate
+        // shuffles in backtrackRandom. generator.corpus pins the results (--replay-corpus).
+        boolean generateRandom(List<String> wordsToPlace, int seed) {
+            Random random = new Random(seed);
+            clear();
+            nodes = 0;
+        
+            List<String> shuffled = new ArrayList<>(wordsToPlace);
+            Collections.shuffle(shuffled, random);
+            shuffled.sort((a, b) -> Integer.compare(b.length(), a.length()));
+            if (!indexCrossings(shuffled)) return rejectRun(GeneratorStats.UNCROSSABLE);
+        
+            return finishRun(backtrackRandom(shuffled, 0, random));
+        }
+    
+        private boolean backtrackRandom(List<String> words, int idx, Random random) {
+            visit(words.size());
+            if (idx >= words.size()) return true;
+        
+            String word = words.get(idx);
+            List<Position> positions = findValidPlacements(word);
+        
+            if (positions.isEmpty()) return false;
+        
+            Collections.shuffle(positions, random);
+        
+            for (Position pos : positions) {
+                Placement p = new Placement(word, pos.row, pos.col, pos.dir);
+                placed.add(p);
+                applyPlacement(p);
+            
+                if (backtrackRandom(words, idx + 1, random)) return true;
+            
+                placed.remove(p);
+                removeWordFromGrid(p);
+            }
+        
+            return false;
+        }
+    }
+
+    private enum Direction { ACROSS, DOWN }
+    
+    public interface GeneratorStatsMXBean {
+        long getRuns();
+        long getSuccessfulRuns();
+        long getNodes();
+        long getPlacementChecks();
+        Map<String, Long> getRejections();
+        Map<String, Long> getRejectedRuns();
+        String getStatsJson();
+        void reset();
+    }
+
+    // Counters for one run, or process-wide totals when merged into TOTAL
+    private static class GeneratorStats implements GeneratorStatsMXBean {
+        // Why a single placement was refused
+        static final int BOUNDS = 0, END_CAP = 1, LETTER_CONFLICT = 2, OVERLAP = 3, ADJACENCY = 4, NO_INTERSECTION = 5,
+            DENSITY = 6;
+        static final String[] REASONS = { "bounds", "endCap", "letterConflict", "overlap", "adjacency", "noIntersection",
+            "density" };
+        // Why a whole run gave up before searching
+        static final int UNCROSSABLE = 0, UNPAIRED = 1;
+        static final String[] RUN_REASONS = { "uncrossable", "unpaired" };
+        static final int SIZE_BUCKETS = 12; // 0, 1, 2-3, 4-7, ... 1024+
+        static final GeneratorStats TOTAL = new GeneratorStats();
+
+        long runs, successes, nodes, placementChecks;
+        final long[] rejections = new long[REASONS.length];
+        final long[] rejectedRuns = new long[RUN_REASONS.length];
+        final long[] candidateSizes = new long[SIZE_BUCKETS];
+        long[] depthCalls = new long[16];
+        long[] depthNanos = new long[16];
+
+        void recordCandidates(int depth, int count, long nanos) {
+            candidateSizes[Math.min(SIZE_BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(count))]++;
+            if (depth >= depthCalls.length) {
+                depthCalls = Arrays.copyOf(depthCalls, depth * 2);
+                depthNanos = Arrays.copyOf(depthNanos, depth * 2);
+            }
+            depthCalls[depth]++;
+            depthNanos[depth] += nanos;
+        }
+
+        synchronized void merge(GeneratorStats run) {
+            runs += run.runs;
+            successes += run.successes;
+            nodes += run.nodes;
+            placementChecks += run.placementChecks;
+            for (int i = 0; i < rejections.length; i++) rejections[i] += run.rejections[i];
+            for (int i = 0; i < rejectedRuns.length; i++) rejectedRuns[i] += run.rejectedRuns[i];
+            for (int i = 0; i < SIZE_BUCKETS; i++) candidateSizes[i] += run.candidateSizes[i];
+            if (run.depthCalls.length > depthCalls.length) {
+                depthCalls = Arrays.copyOf(depthCalls, run.depthCalls.length);
+                depthNanos = Arrays.copyOf(depthNanos, run.depthCalls.length);
+            }
+            for (int i = 0; i < run.depthCalls.length; i++) {
+                depthCalls[i] += run.depthCalls[i];
+                depthNanos[i] += run.depthNanos[i];
+            }
+        }
+
+        @Override
+        public synchronized void reset() {
+            runs = successes = nodes = placementChecks = 0;
+            Arrays.fill(rejections, 0);
+            Arrays.fill(rejectedRuns, 0);
+            Arrays.fill(candidateSizes, 0);
+            Arrays.fill(depthCalls, 0);
+            Arrays.fill(depthNanos, 0);
+        }
+
+        @Override public synchronized long getRuns() { return runs; }
+        @Override public synchronized long getSuccessfulRuns() { return successes; }
+        @Override public synchronized long getNodes() { return nodes; }
+        @Override public synchronized long getPlacementChecks() { return placementChecks; }
+
+        @Override
+        public synchronized Map<String, Long> getRejections() {
+            Map<String, Long> map = new LinkedHashMap<>();
+            for (int i = 0; i < REASONS.length; i++) map.put(REASONS[i], rejections[i]);
+            return map;
+        }
+
+        @Override
+        public synchronized Map<String, Long> getRejectedRuns() {
+            Map<String, Long> map = new LinkedHashMap<>();
+            for (int i = 0; i < RUN_REASONS.length; i++) map.put(RUN_REASONS[i], rejectedRuns[i]);
+            return map;
+        }
+
+        @Override
+        public synchronized String getStatsJson() {
+            StringBuilder sb = new StringBuilder("{");
+            sb.append("\"runs\":").append(runs).append(",\"successfulRuns\":").append(successes);
+            sb.append(",\"nodes\":").append(nodes).append(",\"placementChecks\":").append(placementChecks);
+            sb.append(",\"rejections\":{");
+            for (int i = 0; i < REASONS.length; i++) {
+                sb.append(i > 0 ? "," : "").append('"').append(REASONS[i]).append("\":").append(rejections[i]);
+            }
+            sb.append("},\"rejectedRuns\":{");
+            for (int i = 0; i < RUN_REASONS.length; i++) {
+                sb.append(i > 0 ? "," : "").append('"').append(RUN_REASONS[i]).append("\":").append(rejectedRuns[i]);
+            }
+            sb.append("},\"candidateListSizes\":{");
+            for (int i = 0; i < SIZE_BUCKETS; i++) {
+                int low = (i == 0) ? 0 : 1 << (i - 1), high = (i == 0) ? 0 : (1 << i) - 1;
+                String label = (i == SIZE_BUCKETS - 1) ? low + "+" : (low == high) ? String.valueOf(low) : low + "-" + high;
+                sb.append(i > 0 ? "," : "").append('"').append(label).append("\":").append(candidateSizes[i]);
+            }
+            sb.append("},\"depths\":[");
+            // Depths can be skipped (the symmetric search only lists candidates at even ones)
+            boolean first = true;
+            for (int i = 0; i < depthCalls.length; i++) {
+                if (depthCalls[i] == 0) continue;
+                sb.append(first ? "" : ",").append("{\"depth\":").append(i).append(",\"calls\":")
+                    .append(depthCalls[i]).append(",\"candidateNanos\":").append(depthNanos[i]).append('}');
+                first = false;
+            }
+            return sb.append("]}").toString();
+        }
+
+        // Registers the totals with JMX and, if crossword.stats.file is set, writes them as JSON on exit
+        static void install() {
+            try {
+                java.lang.management.ManagementFactory.getPlatformMBeanServer().registerMBean(TOTAL,
+                    new javax.management.ObjectName("crossword:type=GeneratorStats"));
+            } catch (javax.management.JMException e) {
+                System.err.println("Could not register generator stats MBean: " + e.getMessage());
+            }
+            String file = System.getProperty("crossword.stats.file");
+            if (file == null) return;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.writeString(Paths.get(file), TOTAL.getStatsJson() + "\n");
+                } catch (IOException e) {
+                    System.err.println("Could not write generator stats: " + e.getMessage());
+                }
+            }));
+        }
+    }
+
+    private static class Position {
+        final int row, col;
+        final Direction dir;
+        final int score;
+        
+        Position(int row, int col, Direction dir, int score) {
+            this.row = row;
+            this.col = col;
+            this.dir = dir;
+            this.score = score;
+        }
+    }
+    
+    private static class UserAction {
+        final int row, col;
+        final char previousChar, newChar;
+        
+        UserAction(int row, int col, char previousChar, char newChar) {
+            this.row = row;
+            this.col = col;
+            this.previousChar = previousChar;
+            this.newChar = newChar;
+        }
+    }
+
+    private static class SubsetResult {
+        final List<String> placed, dropped;
+        final int value;
+
+        SubsetResult(List<String> placed, List<String> dropped, int value) {
+            this.placed = placed;
+            this.dropped = dropped;
+            this.value = value;
+        }
+    }
+
+    private static class SessionSnapshot {
+        final String title;
+        final int score;
+        final List<Placement> placements;
+        final List<String> clues;
+        final char[] letters;
+        final List<UserAction> undo, redo;
+
+        SessionSnapshot(String title, int score, List<Placement> placements, List<String> clues,
+                        char[] letters, List<UserAction> undo, List<UserAction> redo) {
+            this.title = title;
+            this.score = score;
+            this.placements = placements;
+            this.clues = clues;
+            this.letters = letters;
+            this.undo = undo;
+            this.redo = redo;
+        }
+    }
+
+    private static class LevelInfo {
+        final int id;
+        final String difficulty, theme;
+
+        LevelInfo(int id, String difficulty, String theme) {
+            this.id = id;
+            this.difficulty = difficulty;
+            this.theme = theme;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Level %d - %s (%s)", id, theme, difficulty);
+        }
+    }
+
+    // Text catalog, one level per line. Opening maps the file and indexes only the
+    // id|difficulty|theme headers; a level's words are parsed when it is loaded.
+    private static class LevelCatalog {
+        private final java.nio.MappedByteBuffer data;
+        private final int[] ids;
+        private final String[] difficulties, themes;
+        private final int[] bodyStart, bodyEnd; // Byte range of each level's placement list
+        private final Map<Integer, Integer> slotById;
+
+        private LevelCatalog(java.nio.MappedByteBuffer data, int[] ids, String[] difficulties, String[] themes,
+                             int[] bodyStart, int[] bodyEnd, Map<Integer, Integer> slotById) {
+            this.data = data;
+            this.ids = ids;
+            this.difficulties = difficulties;
+            this.themes = themes;
+            this.bodyStart = bodyStart;
+            this.bodyEnd = bodyEnd;
+            this.slotById = slotById;
+        }
+
+        static LevelCatalog open(Path path) throws IOException {
+            java.nio.MappedByteBuffer data;
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (ch.size() > Integer.MAX_VALUE) throw new IOException("Catalog too large");
+                data = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+
+            int capacity = 64, count = 0;
+            int[] ids = new int[capacity], starts = new int[capacity], ends = new int[capacity];
+            String[] difficulties = new String[capacity], themes = new String[capacity];
+            Map<String, String> interned = new HashMap<>(); // Difficulty/theme names repeat across levels
+            Map<Integer, Integer> slotById = new HashMap<>();
+
+            int limit = data.limit(), lineNo = 0;
+            for (int pos = 0; pos < limit; ) {
+                int eol = pos;
+                while (eol < limit && data.get(eol) != '\n') eol++;
+                lineNo++;
+                int lineEnd = (eol > pos && data.get(eol - 1) == '\r') ? eol - 1 : eol;
+                if (lineEnd > pos && data.get(pos) != '#') {
+                    int[] bars = new int[3];
+                    int found = 0;
+                    for (int i = pos; i < lineEnd && found < 3; i++) {
+                        if (data.get(i) == '|') bars[found++] = i;
+                    }
+                    if (found < 3) throw new IOException("Catalog line " + lineNo + ": expected id|difficulty|theme|words");
+                    int id;
+                    try {
+                        id = Integer.parseInt(ascii(data, pos, bars[0]).trim());
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Catalog line " + lineNo + ": bad level id");
+                    }
+                    if (slotById.putIfAbsent(id, count) != null) {
+                        throw new IOException("Catalog line " + lineNo + ": duplicate level id " + id);
+                    }
+                    if (count == capacity) {
+                        capacity *= 2;
+                        ids = Arrays.copyOf(ids, capacity);
+                        starts = Arrays.copyOf(starts, capacity);
+                        ends = Arrays.copyOf(ends, capacity);
+                        difficulties = Arrays.copyOf(difficulties, capacity);
+                        themes = Arrays.copyOf(themes, capacity);
+                    }
+                    ids[count] = id;
+                    difficulties[count] = interned.computeIfAbsent(ascii(data, bars[0] + 1, bars[1]).trim(), k -> k);
+                    themes[count] = interned.computeIfAbsent(ascii(data, bars[1] + 1, bars[2]).trim(), k -> k);
+                    starts[count] = bars[2] + 1;
+                    ends[count] = lineEnd;
+                    count++;
+                }
+                pos = eol + 1;
+            }
+            return new LevelCatalog(data, Arrays.copyOf(ids, count), Arrays.copyOf(difficulties, count),
+                Arrays.copyOf(themes, count), Arrays.copyOf(starts, count), Arrays.copyOf(ends, count), slotById);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int slotOf(int id) {
+            return slotById.getOrDefault(id, -1);
+        }
+
+        LevelInfo info(int slot) {
+            return new LevelInfo(ids[slot], difficulties[slot], themes[slot]);
+        }
+
+        List<LevelInfo> page(int page, int pageSize) {
+            List<LevelInfo> result = new ArrayList<>();
+            for (int slot = page * pageSize; slot < Math.min(size(), (page + 1) * pageSize); slot++) {
+                result.add(info(slot));
+            }
+            return result;
+        }
+
+        // Returns null for unknown ids
+        List<Placement> load(int id) throws IOException {
+            Integer slot = slotById.get(id);
+            if (slot == null) return null;
+            return parseLayout(ascii(data, bodyStart[slot], bodyEnd[slot]));
+        }
+
+        private static String ascii(ByteBuffer data, int from, int to) {
+            byte[] bytes = new byte[to - from];
+            data.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class PuzzleData {
+        final String title, author;
+        final int width, height;
+        final List<Placement> placements; // Numbered slot order, relative to the puzzle's own grid
+        final List<String> clues;         // Parallel to placements
+
+        PuzzleData(String title, String author, int width, int height, List<Placement> placements,
+                   List<String> clues) {
+            this.title = title;
+            this.author = author;
+            this.width = width;
+            this.height = height;
+            this.placements = placements;
+            this.clues = clues;
+        }
+
+        char[][] grid() {
+            char[][] grid = new char[height][width];
+            for (char[] row : grid) Arrays.fill(row, '#');
+            for (Placement p : placements) {
+                for (int i = 0; i < p.word.length(); i++) {
+                    int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
+                    int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
+                    grid[r][c] = p.word.charAt(i);
+                }
+            }
+            return grid;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%dx%d, %d words)", title, width, height, placements.size());
+        }
+    }
+
+    private static class PuzzleLoadResult {
+        final Path file;
+        final PuzzleData puzzle;
+        final String error;
+
+        PuzzleLoadResult(Path file, PuzzleData puzzle, String error) {
+            this.file = file;
+            this.puzzle = puzzle;
+            this.error = error;
+        }
+    }
+
+    // Minimal pull parser: reads one value at a time straight off the Reader
+    private static class JsonReader {
+        private final Reader in;
+        private int peeked = -2;
+
+        JsonReader(Reader in) {
+            this.in = in.markSupported() ? in : new java.io.BufferedReader(in);
+        }
+
+        Object readValue() throws IOException {
+            int ch = skipWhitespace();
+            switch (ch) {
+                case '{': return readObject();
+                case '[': return readArray();
+                case '"': return readString();
+                case 't': expect("rue"); return Boolean.TRUE;
+                case 'f': expect("alse"); return Boolean.FALSE;
+                case 'n': expect("ull"); return null;
+                default:
+                    if (ch == '-' || (ch >= '0' && ch <= '9')) return readNumber(ch);
+                    throw new IOException("Unexpected " + (ch < 0 ? "end of input" : "'" + (char) ch + "'"));
+            }
+        }
+
+        private Map<String, Object> readObject() throws IOException {
+            Map<String, Object> map = new LinkedHashMap<>();
+            if (peekNonWhitespace() == '}') { next(); return map; }
+            while (true) {
+                if (skipWhitespace() != '"') throw new IOException("Expected object key");
+                String key = readString();
+                if (skipWhitespace() != ':') throw new IOException("Expected ':' after " + key);
+                map.put(key, readValue());
+                int ch = skipWhitespace();
+                if (ch == '}') return map;
+                if (ch != ',') throw new IOException("Expected ',' or '}'");
+            }
+        }
+
+        private List<Object> readArray() throws IOException {
+            List<Object> list = new ArrayList<>();
+            if (peekNonWhitespace() == ']') { next(); return list; }
+            while (true) {
+                list.add(readValue());
+                int ch = skipWhitespace();
+                if (ch == ']') return list;
+                if (ch != ',') throw new IOException("Expected ',' or ']'");
+            }
+        }
+
+        private String readString() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int ch = next();
+                if (ch < 0) throw new IOException("Unterminated string");
+                if (ch == '"') return sb.toString();
+                if (ch != '\\') { sb.append((char) ch); continue; }
+                int esc = next();
+                switch (esc) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) hex[i] = (char) next();
+                        try {
+                            sb.append((char) Integer.parseInt(new String(hex), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Bad unicode escape");
+                        }
+                        break;
+                    default:
+                        if (esc < 0) throw new IOException("Unterminated string");
+                        sb.append((char) esc);
+                }
+            }
+        }
+
+        private Number readNumber(int first) throws IOException {
+            StringBuilder sb = new StringBuilder().append((char) first);
+            while (true) {
+                int ch = peek();
+                if ((ch >= '0' && ch <= '9') || ch == '.' || ch == 'e' || ch == 'E' || ch == '+' || ch == '-') {
+                    sb.append((char) next());
+                } else {
+                    break;
+                }
+            }
+            String text = sb.toString();
+            try {
+                return (text.contains(".") || text.contains("e") || text.contains("E"))
+                    ? (Number) Double.parseDouble(text) : (Number) Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad number " + text);
+            }
+        }
+
+        private void expect(String rest) throws IOException {
+            for (int i = 0; i < rest.length(); i++) {
+                if (next() != rest.charAt(i)) throw new IOException("Bad literal");
+            }
+        }
+
+        private int skipWhitespace() throws IOException {
+            int ch;
+            do { ch = next(); } while (ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t');
+            return ch;
+        }
+
+        private int peekNonWhitespace() throws IOException {
+            int ch = skipWhitespace();
+            peeked = ch;
+            return ch;
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) peeked = in.read();
+            return peeked;
+        }
+
+        private int next() throws IOException {
+            if (peeked != -2) {
+                int ch = peeked;
+                peeked = -2;
+                return ch;
+            }
+            return in.read();
+        }
+    }
+
+    private static class Placement {
+        final String word;
+        final int row, col;
+        final Direction dir;
+
+        Placement(String word, int row, int col, Direction dir) {
+            this.word = word;
+            this.row = row;
+            this.col = col;
+            this.dir = dir;
+        }
+
+        boolean coversCell(int r, int c) {
+            if (dir == Direction.ACROSS) {
+                return r == row && c >= col && c < col + word.length();
+            } else {
+                return c == col && r >= row && r < row + word.length();
+            }
+        }
+    }
+
+    // Embeddable HTTP/JSON front end over the generator, validator and dictionary.
+    // Handlers run on virtual threads; searches run on a bounded pool whose queue sheds
+    // load with 503s, identical concurrent requests share one search, and each tenant
+    // (X-Tenant header) is capped on in-flight requests. /tournament/* hosts solver sessions.
+    private static class PuzzleService {
+        private static final int QUEUE_CAPACITY = 64;
+        private static final int PER_TENANT_IN_FLIGHT = 16;
+        private static final long DEFAULT_BUDGET_MS = 2_000;
+        private static final long MAX_BUDGET_MS = 30_000;
+        private static final int MAX_BODY_BYTES = 1 << 20;
+        private static final int MAX_WORDS = 500;
+
+        private final Trie trie = new Trie();
+        private final ClueStore clues = new ClueStore();
+        private final java.util.concurrent.ThreadPoolExecutor searchPool;
+        private final Map<String, java.util.concurrent.CompletableFuture<Response>> inFlight =
+            new java.util.concurrent.ConcurrentHashMap<>();
+        // Requests in flight per tenant; an entry is dropped when its count returns to zero
+        private final Map<String, Integer> tenants = new java.util.concurrent.ConcurrentHashMap<>();
+        private final Tournament tournament = new Tournament(trie);
+        private com.sun.net.httpserver.HttpServer server;
+
+        PuzzleService() {
+            addDefaultWords((w, clue) -> {
+                trie.insert(w);
+                clues.add(w, clue);
+            });
+            int threads = Runtime.getRuntime().availableProcessors();
+            searchPool = new java.util.concurrent.ThreadPoolExecutor(threads, threads, 0L,
+                java.util.concurrent.TimeUnit.MILLISECONDS, new java.util.concurrent.ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread t = new Thread(r, "crossword-search");
+                    t.setDaemon(true);
+                    return t;
+                }, new java.util.concurrent.ThreadPoolExecutor.AbortPolicy());
+        }
+
+        void start(int port) throws IOException {
+            server = com.sun.net.httpserver.HttpServer.create(new java.net.InetSocketAddress(port), 0);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/health", ex -> send(ex, new Response(200, "{\"status\":\"ok\"}")));
+            server.createContext("/generate", ex -> handle(ex, this::generate));
+            server.createContext("/validate", ex -> handle(ex, this::validate));
+            server.createContext("/check", ex -> handle(ex, this::check));
+            server.createContext("/tournament/open", ex -> handle(ex, this::openPuzzle));
+            server.createContext("/tournament/join", ex -> handle(ex, this::join));
+            server.createContext("/tournament/play", ex -> handle(ex, this::play));
+            server.createContext("/tournament/leave", ex -> handle(ex, this::leave));
+            server.createContext("/tournament/standings", ex -> handle(ex, this::standings));
+            server.start();
+            System.out.println("Puzzle service listening on port " + server.getAddress().getPort());
+        }
+
+        void stop() {
+            server.stop(0);
+            searchPool.shutdownNow();
+        }
+
+        private interface Action {
+            Response apply(Map<String, Object> request) throws Exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void handle(com.sun.net.httpserver.HttpExchange ex, Action action) throws IOException {
+            if (!ex.getRequestMethod().equals("POST")) {
+                send(ex, error(405, "POST a JSON object"));
+                return;
+            }
+            String tenant = Objects.requireNonNullElse(ex.getRequestHeaders().getFirst("X-Tenant"), "default");
+            boolean[] admitted = new boolean[1];
+            tenants.compute(tenant, (_, inFlight) -> {
+                int count = (inFlight == null) ? 0 : inFlight;
+                if (count >= PER_TENANT_IN_FLIGHT) return inFlight;
+                admitted[0] = true;
+                return count + 1;
+            });
+            if (!admitted[0]) {
+                send(ex, error(429, "Too many requests in flight for tenant " + tenant));
+                return;
+            }
+            try {
+                byte[] bytes = ex.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    send(ex, error(413, "Request body too large"));
+                    return;
+                }
+                Object body = new JsonReader(new java.io.StringReader(new String(bytes, StandardCharsets.UTF_8))).readValue();
+                if (!(body instanceof Map)) throw new IllegalArgumentException("Request must be a JSON object");
+                send(ex, action.apply((Map<String, Object>) body));
+            } catch (IOException | IllegalArgumentException | ClassCastException e) {
+                send(ex, error(400, e.getMessage()));
+            } catch (Exception e) {
+                send(ex, error(500, String.valueOf(e)));
+            } finally {
+                tenants.computeIfPresent(tenant, (_, inFlight) -> inFlight > 1 ? inFlight - 1 : null);
+            }
+        }
+
+        private Response generate(Map<String, Object> req) throws Exception {
+            List<Object> requested = list(req, "words");
+            if (requested.isEmpty()) throw new IllegalArgumentException("words must not be empty");
+            if (requested.size() > MAX_WORDS) throw new IllegalArgumentException("At most " + MAX_WORDS + " words");
+            List<String> wordList = new ArrayList<>();
+            for (Object w : requested) wordList.add(answer(w));
+            String mode = String.valueOf(req.getOrDefault("mode", "all"));
+            int seed = number(req, "seed", 1).intValue();
+            int maxWords = number(req, "maxWords", wordList.size()).intValue();
+            double density = number(req, "density", 0).doubleValue();
+            long budgetMs = Math.min(MAX_BUDGET_MS, Math.max(1, number(req, "budgetMillis", DEFAULT_BUDGET_MS).longValue()));
+            long optimizeMs = Math.min(budgetMs, Math.max(0, number(req, "optimizeMillis", 0).longValue()));
+
+            // Identical requests coalesce onto the search already running. The word order stays in
+            // the key: the search depends on it, and one seed must always give one layout.
+            String coalesceKey = String.join(",", wordList) + "|" + mode + "|" + seed + "|" + maxWords + "|" + density
+                + "|" + budgetMs + "|" + optimizeMs;
+            java.util.concurrent.CompletableFuture<Response> mine = new java.util.concurrent.CompletableFuture<>();
+            java.util.concurrent.CompletableFuture<Response> shared = inFlight.putIfAbsent(coalesceKey, mine);
+            if (shared == null) {
+                shared = mine;
+                try {
+                    searchPool.execute(() -> {
+                        try {
+                            mine.complete(search(wordList, mode, seed, maxWords, density, budgetMs, optimizeMs));
+                        } catch (Throwable t) {
+                            mine.completeExceptionally(t);
+                        } finally {
+                            inFlight.remove(coalesceKey, mine);
+                        }
+                    });
+                } catch (java.util.concurrent.RejectedExecutionException e) {
+                    inFlight.remove(coalesceKey, mine);
+                    mine.complete(error(503, "Search queue full, retry later"));
+                }
+            }
+            try {
+                return shared.get(budgetMs + optimizeMs + 1_000, java.util.concurrent.TimeUnit.MILLISECONDS);
+            } catch (java.util.concurrent.TimeoutException e) {
+                return error(504, "Time budget exceeded");
+            } catch (ExecutionException e) {
+                throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+            }
+        }
+
+        private Response search(List<String> wordList, String mode, int seed, int maxWords, double density,
+                                long budgetMs, long optimizeMs) {
+            Generator gen = new Generator();
+            List<String> dropped = List.of();
+            boolean ok;
+            try {
+                switch (mode) {
+                    case "subset":
+                        dropped = gen.generateMaxSubset(wordList, String::length, maxWords,
+                            budgetMs * 1_000_000L, new Random(seed)).dropped;
+                        ok = !gen.placed.isEmpty();
+                        break;
+                    case "symmetric":
+                        gen.setDeadline(System.nanoTime() + budgetMs * 1_000_000L);
+                        ok = gen.generateSymmetric(wordList, density);
+                        break;
+                    case "all":
+                        gen.setDeadline(System.nanoTime() + budgetMs * 1_000_000L);
+                        ok = gen.generateRandom(wordList, seed);
+                        break;
+                    default:
+                        return error(400, "Unknown mode " + mode);
+                }
+            } catch (CancellationException e) {
+                return error(504, "Time budget exceeded");
+            }
+            if (!ok) {
+                StringBuilder sb = new StringBuilder("{\"ok\":false,\"error\":\"No layout found\",\"nodes\":")
+                    .append(gen.nodes).append(",\"uncrossable\":[");
+                List<String> uncrossable = gen.uncrossable();
+                for (int i = 0; i < uncrossable.size(); i++) sb.append(i > 0 ? "," : "").append(jsonString(uncrossable.get(i)));
+                return new Response(200, sb.append("]}").toString());
+            }
+            if (optimizeMs > 0) gen.optimize(new Random(seed), optimizeMs * 1_000_000L, Integer.MAX_VALUE);
+
+            StringBuilder sb = new StringBuilder("{\"ok\":true,\"nodes\":").append(gen.nodes);
+            sb.append(",\"placements\":").append(placementsJson(gen.placed));
+            sb.append(",\"dropped\":[");
+            for (int i = 0; i < dropped.size(); i++) sb.append(i > 0 ? "," : "").append(jsonString(dropped.get(i)));
+            return new Response(200, sb.append("]}").toString());
+        }
+
+        private Response validate(Map<String, Object> req) {
+            List<Placement> layout = placements(req);
+            List<String> problems = validateLayout(layout);
+            int fills = problems.isEmpty() ? new FillCounter(layout, trie).count(2) : 0;
+            StringBuilder sb = new StringBuilder("{\"valid\":").append(problems.isEmpty())
+                .append(",\"unique\":").append(fills == 1).append(",\"fills\":").append(fills).append(",\"problems\":[");
+            for (int i = 0; i < problems.size(); i++) sb.append(i > 0 ? "," : "").append(jsonString(problems.get(i)));
+            return new Response(200, sb.append("]}").toString());
+        }
+
+        // Same scoring as the Check button: 10 per correct word, 5 per dictionary word
+        private Response check(Map<String, Object> req) {
+            List<Placement> layout = placements(req);
+            List<Object> rows = list(req, "grid");
+            StringBuilder sb = new StringBuilder("{\"words\":[");
+            int correctWords = 0, validWords = 0;
+            for (int k = 0; k < layout.size(); k++) {
+                Placement p = layout.get(k);
+                StringBuilder userWord = new StringBuilder();
+                for (int i = 0; i < p.word.length(); i++) {
+                    int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
+                    int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
+                    String row = (r < rows.size()) ? String.valueOf(rows.get(r)) : "";
+                    userWord.append(c < row.length() ? Character.toUpperCase(row.charAt(c)) : '?');
+                }
+                boolean correct = userWord.toString().equals(p.word);
+                boolean valid = trie.contains(userWord.toString());
+                if (correct) correctWords++;
+                if (valid) validWords++;
+                sb.append(k > 0 ? "," : "").append("{\"word\":").append(jsonString(p.word))
+                    .append(",\"correct\":").append(correct).append(",\"valid\":").append(valid).append('}');
+            }
+            sb.append("],\"correct\":").append(correctWords).append(",\"validWords\":").append(validWords);
+            return new Response(200, sb.append(",\"score\":").append(correctWords * 10 + validWords * 5).append('}').toString());
+        }
+
+        // TOURNAMENT
+        private Response openPuzzle(Map<String, Object> req) {
+            List<Placement> layout = placements(req);
+            List<String> problems = validateLayout(layout);
+            if (!problems.isEmpty()) return error(400, String.join("; ", problems));
+            List<String> puzzleClues = new ArrayList<>();
+            for (Placement p : layout) puzzleClues.add(clues.primary(p.word, "No clue"));
+            SharedPuzzle puzzle = tournament.open(String.valueOf(req.getOrDefault("title", "Tournament")),
+                layout, puzzleClues);
+            if (puzzle == null) return error(503, "Too many open puzzles");
+            return new Response(200, "{\"ok\":true,\"puzzle\":" + puzzle.id + ",\"cells\":" + puzzle.cellCount() + "}");
+        }
+
+        private Response join(Map<String, Object> req) {
+            String player = String.valueOf(req.get("player"));
+            if (player.isBlank() || player.equals("null")) throw new IllegalArgumentException("player is required");
+            SharedPuzzle puzzle = tournament.puzzle(number(req, "puzzle", -1).intValue());
+            if (puzzle == null) return error(404, "Unknown puzzle");
+            String session = tournament.join(puzzle, player);
+            if (session == null) return error(503, "Tournament is full");
+            StringBuilder sb = new StringBuilder("{\"ok\":true,\"session\":").append(jsonString(session))
+                .append(",\"title\":").append(jsonString(puzzle.title)).append(",\"slots\":[");
+            for (int i = 0; i < puzzle.layout.size(); i++) {
+                Placement p = puzzle.layout.get(i);
+                sb.append(i > 0 ? "," : "").append("{\"row\":").append(p.row).append(",\"col\":").append(p.col)
+                    .append(",\"dir\":\"").append(p.dir).append("\",\"length\":").append(p.word.length())
+                    .append(",\"clue\":").append(jsonString(puzzle.clues.get(i))).append('}');
+            }
+            return new Response(200, sb.append("]}").toString());
+        }
+
+        // Applies moves ({row, col, letter}, "" clears), then any undo/redo counts, and reports the score
+        @SuppressWarnings("unchecked")
+        private Response play(Map<String, Object> req) {
+            PlayerSession session = tournament.session(String.valueOf(req.get("session")));
+            if (session == null) return error(404, "Unknown session");
+            List<Object> moves = req.containsKey("moves") ? list(req, "moves") : List.of();
+            int undo = number(req, "undo", 0).intValue(), redo = number(req, "redo", 0).intValue();
+            // Check every move before applying any, so a bad request leaves the board untouched
+            int[][] parsed = new int[moves.size()][];
+            for (int i = 0; i < parsed.length; i++) {
+                Map<String, Object> m = (Map<String, Object>) moves.get(i);
+                String letter = String.valueOf(m.getOrDefault("letter", "")).toUpperCase();
+                char ch = letter.isEmpty() ? ' ' : letter.charAt(0);
+                if (letter.length() > 1 || (ch != ' ' && (ch < 'A' || ch > 'Z'))) {
+                    throw new IllegalArgumentException("letter must be a single letter A-Z or empty");
+                }
+                int row = number(m, "row", -1).intValue(), col = number(m, "col", -1).intValue();
+                if (session.puzzle.cellOf(row, col) < 0) {
+                    throw new IllegalArgumentException("Not a puzzle cell: " + row + "," + col);
+                }
+                parsed[i] = new int[] { row, col, ch };
+            }
+            synchronized (session) {
+                for (int[] move : parsed) session.type(move[0], move[1], (char) move[2]);
+                for (int i = 0; i < undo && session.undo(); i++) { }
+                for (int i = 0; i < redo && session.redo(); i++) { }
+                return new Response(200, "{\"ok\":true,\"score\":" + session.score() + ",\"correct\":"
+                    + session.correctWords() + ",\"validWords\":" + session.validWords() + ",\"complete\":"
+                    + (session.correctWords() == session.puzzle.layout.size()) + "}");
+            }
+        }
+
+        private Response leave(Map<String, Object> req) {
+            if (!tournament.leave(String.valueOf(req.get("session")))) return error(404, "Unknown session");
+            return new Response(200, "{\"ok\":true}");
+        }
+
+        private Response standings(Map<String, Object> req) {
+            SharedPuzzle puzzle = tournament.puzzle(number(req, "puzzle", -1).intValue());
+            if (puzzle == null) return error(404, "Unknown puzzle");
+            List<Tournament.Standing> table = tournament.standings(puzzle);
+            StringBuilder sb = new StringBuilder("{\"ok\":true,\"players\":").append(table.size()).append(",\"standings\":[");
+            for (int i = 0; i < table.size(); i++) {
+                Tournament.Standing st = table.get(i);
+                sb.append(i > 0 ? "," : "").append("{\"player\":").append(jsonString(st.player))
+                    .append(",\"score\":").append(st.score).append(",\"correct\":").append(st.correctWords).append('}');
+            }
+            return new Response(200, sb.append("]}").toString());
+        }
+
+        private String placementsJson(List<Placement> layout) {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < layout.size(); i++) {
+                Placement p = layout.get(i);
+                sb.append(i > 0 ? "," : "").append("{\"word\":").append(jsonString(p.word))
+                    .append(",\"row\":").append(p.row).append(",\"col\":").append(p.col)
+                    .append(",\"dir\":\"").append(p.dir).append("\",\"clue\":")
+                    .append(jsonString(clues.primary(p.word, "No clue"))).append('}');
+            }
+            return sb.append(']').toString();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static List<Placement> placements(Map<String, Object> req) {
+            List<Placement> layout = new ArrayList<>();
+            for (Object item : list(req, "placements")) {
+                if (!(item instanceof Map)) throw new IllegalArgumentException("placements must be objects");
+                Map<String, Object> m = (Map<String, Object>) item;
+                if (!(m.get("row") instanceof Number) || !(m.get("col") instanceof Number)) {
+                    throw new IllegalArgumentException("Placements need a numeric row and col");
+                }
+                String dir = string(m, "dir").toUpperCase(Locale.ROOT);
+                if (!dir.equals("ACROSS") && !dir.equals("DOWN")) throw new IllegalArgumentException("dir must be ACROSS or DOWN");
+                Placement p = new Placement(answer(m.get("word")), number(m, "row", -1).intValue(),
+                    number(m, "col", -1).intValue(), Direction.valueOf(dir));
+                if (!fitsGrid(p)) throw new IllegalArgumentException(p.word + " does not fit the grid");
+                layout.add(p);
+            }
+            return layout;
+        }
+
+        // An answer word upper-cased, or a 400 unless it is 2-18 letters A-Z
+        private static String answer(Object value) {
+            if (!(value instanceof String)) throw new IllegalArgumentException("Words must be strings");
+            String word = ((String) value).toUpperCase(Locale.ROOT);
+            int maxLength = Math.max(ROWS, COLS);
+            if (word.length() > maxLength || !ClueStore.isGridWord(word)) {
+                String shown = (word.length() > 20) ? word.substring(0, 20) + "..." : word;
+                throw new IllegalArgumentException("Words must be 2-" + maxLength + " letters A-Z: " + shown);
+            }
+            return word;
+        }
+
+        private static String string(Map<String, Object> req, String field) {
+            Object value = req.get(field);
+            if (!(value instanceof String)) throw new IllegalArgumentException(field + " must be a string");
+            return (String) value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static List<Object> list(Map<String, Object> req, String field) {
+            Object value = req.get(field);
+            if (!(value instanceof List)) throw new IllegalArgumentException(field + " must be an array");
+            return (List<Object>) value;
+        }
+
+        private static Number number(Map<String, Object> req, String field, Number fallback) {
+            Object value = req.get(field);
+            if (value == null) return fallback;
+            if (!(value instanceof Number)) throw new IllegalArgumentException(field + " must be a number");
+            return (Number) value;
+        }
+
+        private static Response error(int status, String message) {
+            return new Response(status, "{\"ok\":false,\"error\":" + jsonString(String.valueOf(message)) + "}");
+        }
+
+        private static void send(com.sun.net.httpserver.HttpExchange ex, Response response) throws IOException {
+            byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (response.status == 503) ex.getResponseHeaders().set("Retry-After", "1");
+            ex.sendResponseHeaders(response.status, bytes.length);
+            try (java.io.OutputStream out = ex.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        private static class Response {
+            final int status;
+            final String body;
+
+            Response(int status, String body) {
+                this.status = status;
+                this.body = body;
+            }
+        }
+    }
+
+    // TOURNAMENT MODE
+    // One puzzle shared by many solvers. Everything derivable from the layout is computed once
+    // here and never changes: playable cells are numbered 0..n-1, and each slot keeps its
+    // answer and the cell numbers it covers, so a player's board is just n bytes.
+    private static class SharedPuzzle {
+        final int id;
+        final String title;
+        final List<Placement> layout;
+        final List<String> clues;
+        final Trie dictionary;
+        private final int[] cellAt = new int[ROWS * COLS]; // Grid index -> cell number, or -1
+        private final int[][] slotCells;
+        private final byte[][] answers;
+        private final int[][] slotsAtCell;
+
+        SharedPuzzle(int id, String title, List<Placement> layout, List<String> clues, Trie dictionary) {
+            this.id = id;
+            this.title = title;
+            this.layout = List.copyOf(layout);
+            this.clues = List.copyOf(clues);
+            this.dictionary = dictionary;
+            Arrays.fill(cellAt, -1);
+            int cells = 0;
+            slotCells = new int[layout.size()][];
+            answers = new byte[layout.size()][];
+            for (int k = 0; k < layout.size(); k++) {
+                Placement p = layout.get(k);
+                slotCells[k] = new int[p.word.length()];
+                answers[k] = p.word.getBytes(StandardCharsets.US_ASCII);
+                for (int i = 0; i < p.word.length(); i++) {
+                    int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
+                    int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
+                    if (cellAt[r * COLS + c] < 0) cellAt[r * COLS + c] = cells++;
+                    slotCells[k][i] = cellAt[r * COLS + c];
+                }
+            }
+            int[] counts = new int[cells];
+            for (int[] covered : slotCells) for (int cell : covered) counts[cell]++;
+            slotsAtCell = new int[cells][];
+            for (int cell = 0; cell < cells; cell++) slotsAtCell[cell] = new int[counts[cell]];
+            for (int k = 0; k < slotCells.length; k++) {
+                for (int cell : slotCells[k]) slotsAtCell[cell][--counts[cell]] = k;
+            }
+        }
+
+        int cellCount() {
+            return slotsAtCell.length;
+        }
+
+        // -1 if (row, col) is not part of the puzzle
+        int cellOf(int row, int col) {
+            return (row < 0 || row >= ROWS || col < 0 || col >= COLS) ? -1 : cellAt[row * COLS + col];
+        }
+    }
+
+    // One solver's board: a byte per cell, undo/redo as packed ints (cell << 16 | old << 8 | new)
+    // and per-slot states kept up to date on every move, so scoring never rescans the board.
+    // Same scoring as the Check button: 10 per correct word, 5 per dictionary word.
+    // Callers synchronize on the session for multi-step updates.
+    private static class PlayerSession {
+        private static final byte CORRECT = 1, VALID = 2;
+
+        final SharedPuzzle puzzle;
+        final String player;
+        volatile long lastActive = System.nanoTime(); // Maintained by Tournament
+        private final byte[] letters;
+        private final byte[] slotState;
+        private int[] undo = new int[16];
+        private int[] redo = new int[0];
+        private int undoSize, redoSize;
+        private int correctWords, validWords;
+
+        PlayerSession(SharedPuzzle puzzle, String player) {
+            this.puzzle = puzzle;
+            this.player = player;
+            this.letters = new byte[puzzle.cellCount()];
+            this.slotState = new byte[puzzle.layout.size()];
+        }
+
+        // ch is 'A'-'Z', or ' ' to clear. False if (row, col) is not a puzzle cell.
+        synchronized boolean type(int row, int col, char ch) {
+            int cell = puzzle.cellOf(row, col);
+            if (cell < 0) return false;
+            byte next = (ch == ' ') ? 0 : (byte) ch;
+            if (letters[cell] == next) return true;
+            if (undoSize == undo.length) undo = Arrays.copyOf(undo, undoSize * 2);
+            undo[undoSize++] = cell << 16 | (letters[cell] & 0xFF) << 8 | next;
+            redoSize = 0;
+            set(cell, next);
+            return true;
+        }
+
+        synchronized boolean undo() {
+            if (undoSize == 0) return false;
+            int action = undo[--undoSize];
+            if (redoSize == redo.length) redo = Arrays.copyOf(redo, Math.max(16, redoSize * 2));
+            redo[redoSize++] = action;
+            set(action >>> 16, (byte) (action >>> 8));
+            return true;
+        }
+
+        synchronized boolean redo() {
+            if (redoSize == 0) return false;
+            int action = redo[--redoSize];
+            undo[undoSize++] = action; // Undo always has room: every redo entry came off it
+            set(action >>> 16, (byte) action);
+            return true;
+        }
+
+        synchronized int score() {
+            return correctWords * 10 + validWords * 5;
+        }
+
+        synchronized int correctWords() {
+            return correctWords;
+        }
+
+        synchronized int validWords() {
+            return validWords;
+        }
+
+        private void set(int cell, byte letter) {
+            letters[cell] = letter;
+            for (int k : puzzle.slotsAtCell[cell]) {
+                boolean correct = matchesAnswer(k);
+                boolean valid = puzzle.dictionary.contains(letters, puzzle.slotCells[k]);
+                byte old = slotState[k];
+                if (correct != ((old & CORRECT) != 0)) correctWords += correct ? 1 : -1;
+                if (valid != ((old & VALID) != 0)) validWords += valid ? 1 : -1;
+                slotState[k] = (byte) ((correct ? CORRECT : 0) | (valid ? VALID : 0));
+            }
+        }
+
+        private boolean matchesAnswer(int slot) {
+            int[] cells = puzzle.slotCells[slot];
+            byte[] answer = puzzle.answers[slot];
+            for (int i = 0; i < cells.length; i++) {
+                if (letters[cells[i]] != answer[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    // Registry of shared puzzles and player sessions. Sessions are independent, so requests for
+    // different players run in parallel; standings read every session in parallel.
+    // Sessions end on leave or after SESSION_IDLE_NANOS without a request; a puzzle is dropped
+    // when its last session ends, or when nobody joins it within the same idle time. Expiry is
+    // swept lazily from open/join, at most once per SWEEP_INTERVAL_NANOS.
+    private static class Tournament {
+        private static final int MAX_SESSIONS = 10_000;
+        private static final int MAX_PUZZLES = 1_000;
+        private static final long SESSION_IDLE_NANOS = 30L * 60 * 1_000_000_000;
+        private static final long SWEEP_INTERVAL_NANOS = 60L * 1_000_000_000;
+
+        private final Trie dictionary;
+        private final Map<Integer, PuzzleEntry> puzzles = new java.util.concurrent.ConcurrentHashMap<>();
+        private final Map<String, PlayerSession> sessions = new java.util.concurrent.ConcurrentHashMap<>();
+        private final java.util.concurrent.atomic.AtomicInteger sessionCount = new java.util.concurrent.atomic.AtomicInteger();
+        private final java.util.concurrent.atomic.AtomicInteger puzzleCount = new java.util.concurrent.atomic.AtomicInteger();
+        private final java.util.concurrent.atomic.AtomicInteger nextPuzzleId = new java.util.concurrent.atomic.AtomicInteger(1);
+        private final java.util.concurrent.atomic.AtomicLong lastSweep = new java.util.concurrent.atomic.AtomicLong(System.nanoTime());
+
+        // Player count and last activity; only changed inside puzzles.compute* for this id
+        private static class PuzzleEntry {
+            final SharedPuzzle puzzle;
+            int players;
+            long lastActive = System.nanoTime();
+
+            PuzzleEntry(SharedPuzzle puzzle) {
+                this.puzzle = puzzle;
+            }
+        }
+
+        Tournament(Trie dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        // Returns the new puzzle, or null when too many are open
+        SharedPuzzle open(String title, List<Placement> layout, List<String> clues) {
+            // PlayerSession.type only takes A-Z, so any other answer could never be solved
+            for (Placement p : layout) {
+                if (!ClueStore.isGridWord(p.word)) throw new IllegalArgumentException("Answers must be letters A-Z: " + p.word);
+            }
+            sweep();
+            if (puzzleCount.incrementAndGet() > MAX_PUZZLES) {
+                puzzleCount.decrementAndGet();
+                return null;
+            }
+            SharedPuzzle puzzle = new SharedPuzzle(nextPuzzleId.getAndIncrement(), title, layout, clues, dictionary);
+            puzzles.put(puzzle.id, new PuzzleEntry(puzzle));
+            return puzzle;
+        }
+
+        SharedPuzzle puzzle(int id) {
+            PuzzleEntry entry = puzzles.get(id);
+            return (entry == null) ? null : entry.puzzle;
+        }
+
+        // Returns the new session's id, or null when the tournament is full
+        String join(SharedPuzzle puzzle, String player) {
+            sweep();
+            if (sessionCount.incrementAndGet() > MAX_SESSIONS) {
+                sessionCount.decrementAndGet();
+                return null;
+            }
+            boolean[] joined = new boolean[1];
+            puzzles.computeIfPresent(puzzle.id, (_, entry) -> {
+                entry.players++;
+                entry.lastActive = System.nanoTime();
+                joined[0] = true;
+                return entry;
+            });
+            if (!joined[0]) {
+                sessionCount.decrementAndGet();
+                throw new IllegalArgumentException("Puzzle " + puzzle.id + " has closed");
+            }
+            String id = UUID.randomUUID().toString();
+            sessions.put(id, new PlayerSession(puzzle, player));
+            return id;
+        }
+
+        // Looks a session up and marks it active
+        PlayerSession session(String id) {
+            PlayerSession session = sessions.get(id);
+            if (session != null) session.lastActive = System.nanoTime();
+            return session;
+        }
+
+        boolean leave(String id) {
+            PlayerSession session = sessions.remove(id);
+            if (session == null) return false;
+            sessionCount.decrementAndGet();
+            close(session.puzzle.id, entry -> --entry.players == 0);
+            return true;
+        }
+
+        // Drops the puzzle if the test, run inside the compute, says it is finished
+        private void close(int id, java.util.function.Predicate<PuzzleEntry> finished) {
+            boolean[] closed = new boolean[1];
+            puzzles.computeIfPresent(id, (_, entry) -> {
+                closed[0] = finished.test(entry);
+                return closed[0] ? null : entry;
+            });
+            if (closed[0]) puzzleCount.decrementAndGet();
+        }
+
+        private void sweep() {
+            long now = System.nanoTime(), last = lastSweep.get();
+            if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) return;
+            for (Map.Entry<String, PlayerSession> e : sessions.entrySet()) {
+                if (now - e.getValue().lastActive > SESSION_IDLE_NANOS) leave(e.getKey());
+            }
+            for (Integer id : puzzles.keySet()) {
+                close(id, entry -> entry.players == 0 && now - entry.lastActive > SESSION_IDLE_NANOS);
+            }
+        }
+
+        // Best score first
+        List<Standing> standings(SharedPuzzle puzzle) {
+            return sessions.values().parallelStream()
+                .filter(s -> s.puzzle == puzzle)
+                .map(s -> {
+                    synchronized (s) {
+                        return new Standing(s.player, s.score(), s.correctWords());
+                    }
+                })
+                .sorted((a, b) -> Integer.compare(b.score, a.score))
+                .toList();
+        }
+
+        static class Standing {
+            final String player;
+            final int score, correctWords;
+
+            Standing(String player, int score, int correctWords) {
+                this.player = player;
+                this.score = score;
+                this.correctWords = correctWords;
+            }
+        }
+    }
+
+    // Every clue for every word; the first one is shown. Built-in and imported clues stay
+    // resident. A clue database file (WORD<TAB>clue per line) is only indexed: each word keeps
+    // packed (offset, length) refs into the mapped file, and text is decoded on demand
+    // through a small LRU cache.
+    private static class ClueStore {
+        private static final int CACHE_SIZE = 1024;
+        private static final int LENGTH_BITS = 24;
+
+        // Refs: -(i + 1) for resident.get(i), otherwise offset << LENGTH_BITS | length
+        private final Map<String, long[]> index = new HashMap<>();
+        private final List<String> resident = new ArrayList<>();
+        private final Map<Long, String> cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+        private ByteBuffer database;
+
+        // Returns true if this is the first clue for the word
+        synchronized boolean add(String word, String clue) {
+            long[] refs = index.get(word);
+            if (refs != null && indexOfText(refs, clue) >= 0) return false;
+            index.put(word, append(refs, residentRef(clue), false));
+            return refs == null;
+        }
+
+        // Makes the clue the one shown for the word, e.g. for imported puzzles
+        synchronized void addPreferred(String word, String clue) {
+            long[] refs = index.get(word);
+            int existing = (refs == null) ? -1 : indexOfText(refs, clue);
+            if (existing == 0) return;
+            if (existing > 0) {
+                long ref = refs[existing];
+                System.arraycopy(refs, 0, refs, 1, existing);
+                refs[0] = ref;
+                return;
+            }
+            index.put(word, append(refs, residentRef(clue), true));
+        }
+
+        synchronized String primary(String word, String fallback) {
+            long[] refs = index.get(word);
+            return (refs == null) ? fallback : text(refs[0]);
+        }
+
+        synchronized List<String> cluesFor(String word) {
+            long[] refs = index.get(word);
+            if (refs == null) return List.of();
+            List<String> result = new ArrayList<>(refs.length);
+            for (long ref : refs) result.add(text(ref));
+            return result;
+        }
+
+        synchronized Set<String> words() {
+            return new LinkedHashSet<>(index.keySet());
+        }
+
+        // Indexes a clue database; returns the number of clues found
+        synchronized int index(Path file) throws IOException {
+            if (database != null) throw new IOException("A clue database is already indexed");
+            ByteBuffer data;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (ch.size() > Integer.MAX_VALUE) throw new IOException("Clue database too large");
+                data = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+            database = data;
+            int count = 0, limit = data.limit();
+            for (int pos = 0; pos < limit; ) {
+                int eol = pos;
+                while (eol < limit && data.get(eol) != '\n') eol++;
+                int lineEnd = (eol > pos && data.get(eol - 1) == '\r') ? eol - 1 : eol;
+                int tab = pos;
+                while (tab < lineEnd && data.get(tab) != '\t') tab++;
+                int length = lineEnd - tab - 1;
+                if (tab > pos && length > 0 && length < (1 << LENGTH_BITS) && data.get(pos) != '#') {
+                    byte[] w = new byte[tab - pos];
+                    data.get(pos, w);
+                    String word = new String(w, StandardCharsets.UTF_8).trim().toUpperCase(Locale.ROOT);
+                    // Only plain A-Z words can be placed in the grid or typed by a player
+                    if (isGridWord(word)) {
+                        word = word.intern();
+                        index.put(word, append(index.get(word), ((long) (tab + 1) << LENGTH_BITS) | length, false));
+                        count++;
+                    }
+                }
+                pos = eol + 1;
+            }
+            return count;
+        }
+
+        private static boolean isGridWord(String word) {
+            if (word.length() < 2) return false;
+            for (int i = 0; i < word.length(); i++) {
+                if (word.charAt(i) < 'A' || word.charAt(i) > 'Z') return false;
+            }
+            return true;
+        }
+
+        private long residentRef(String clue) {
+            resident.add(clue);
+            return -resident.size();
+        }
+
+        private String text(long ref) {
+            if (ref < 0) return resident.get((int) (-ref - 1));
+            return cache.computeIfAbsent(ref, r -> {
+                byte[] bytes = new byte[(int) (r & ((1 << LENGTH_BITS) - 1))];
+                database.get((int) (r >>> LENGTH_BITS), bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            });
+        }
+
+        private int indexOfText(long[] refs, String clue) {
+            for (int i = 0; i < refs.length; i++) {
+                if (text(refs[i]).equals(clue)) return i;
+            }
+            return -1;
+        }
+
+        private static long[] append(long[] refs, long ref, boolean first) {
+            if (refs == null) return new long[] { ref };
+            long[] grown = new long[refs.length + 1];
+            System.arraycopy(refs, 0, grown, first ? 1 : 0, refs.length);
+            grown[first ? 0 : refs.length] = ref;
+            return grown;
+        }
+    }
+
+    // Counts dictionary fills of a layout's slots, ignoring the stored answers, and stops at
+    // the limit. Picks the most constrained slot first; a slot with no candidates fails the
+    // branch immediately, and sub-grids already counted are memoized by their letters.
+    private static class FillCounter {
+        private final Trie trie;
+        private final int[][] slotCells;
+        private final char[] grid = new char[ROWS * COLS];
+        private final boolean distinctWords;
+        private final Map<String, List<String>> matchCache = new HashMap<>();
+        private final Map<String, Integer> memo = new HashMap<>();
+        private int limit;
+        long nodes;
+
+        FillCounter(List<Placement> layout, Trie trie) {
+            this.trie = trie;
+            slotCells = new int[layout.size()][];
+            Set<String> seen = new HashSet<>();
+            boolean distinct = true;
+            Arrays.fill(grid, '#');
+            for (int s = 0; s < layout.size(); s++) {
+                Placement p = layout.get(s);
+                slotCells[s] = new int[p.word.length()];
+                for (int i = 0; i < p.word.length(); i++) {
+                    int r = (p.dir == Direction.ACROSS) ? p.row : p.row + i;
+                    int c = (p.dir == Direction.ACROSS) ? p.col + i : p.col;
+                    slotCells[s][i] = r * COLS + c;
+                    grid[r * COLS + c] = '?';
+                }
+                distinct &= seen.add(p.word);
+            }
+            // A puzzle that repeats an answer on purpose may repeat words in alternatives too
+            this.distinctWords = distinct;
+        }
+
+        int count(int limit) {
+            this.limit = limit;
+            memo.clear();
+            return countFrom();
+        }
+
+        private int countFrom() {
+            nodes++;
+            String key = new String(grid);
+            Integer cached = memo.get(key);
+            if (cached != null) return cached;
+
+            Set<String> used = new HashSet<>();
+            int best = -1;
+            List<String> bestCandidates = null;
+            for (int s = 0; s < slotCells.length; s++) {
+                String pattern = patternOf(s);
+                if (pattern.indexOf('?') < 0) {
+                    // Completed by crossings: must be a word, and a fresh one if answers are distinct
+                    if (!trie.contains(pattern) || (distinctWords && !used.add(pattern))) return remember(key, 0);
+                    continue;
+                }
+                List<String> candidates = matchCache.computeIfAbsent(pattern, trie::matches);
+                if (candidates.isEmpty()) return remember(key, 0);
+                if (bestCandidates == null || candidates.size() < bestCandidates.size()) {
+                    best = s;
+                    bestCandidates = candidates;
+                }
+            }
+            if (best < 0) return remember(key, 1);
+
+            int total = 0;
+            char[] saved = new char[slotCells[best].length];
+            for (String word : bestCandidates) {
+                if (distinctWords && used.contains(word)) continue;
+                for (int i = 0; i < saved.length; i++) {
+                    saved[i] = grid[slotCells[best][i]];
+                    grid[slotCells[best][i]] = word.charAt(i);
+                }
+                total += countFrom();
+                for (int i = 0; i < saved.length; i++) grid[slotCells[best][i]] = saved[i];
+                if (total >= limit) break;
+            }
+            return remember(key, Math.min(total, limit));
+        }
+
+        private String patternOf(int slot) {
+            char[] pattern = new char[slotCells[slot].length];
+            for (int i = 0; i < pattern.length; i++) pattern[i] = grid[slotCells[slot][i]];
+            return new String(pattern);
+        }
+
+        private int remember(String key, int count) {
+            memo.put(key, count);
+            return count;
+        }
+    }
+
+    private static class Trie {
+        private static class Node {
+            Node[] next = new Node[26];
+            boolean end = false;
+        }
+
+        private final Node root = new Node();
+
+        void insert(String s) {
+            Node cur = root;
+            for (char ch : s.toCharArray()) {
+                if (ch < 'A' || ch > 'Z') continue;
+                int idx = ch - 'A';
+                if (cur.next[idx] == null) cur.next[idx] = new Node();
+                cur = cur.next[idx];
+            }
+            cur.end = true;
+        }
+
+        boolean contains(String s) {
+            Node cur = root;
+            for (char ch : s.toCharArray()) {
+                if (ch < 'A' || ch > 'Z') return false;
+                int idx = ch - 'A';
+                if (cur.next[idx] == null) return false;
+                cur = cur.next[idx];
+            }
+            return cur.end;
+        }
+
+        // Whether the letters at the given cells spell a word; a 0 byte is an empty cell
+        boolean contains(byte[] letters, int[] cells) {
+            Node cur = root;
+            for (int cell : cells) {
+                int idx = letters[cell] - 'A';
+                if (idx < 0 || idx > 25 || cur.next[idx] == null) return false;
+                cur = cur.next[idx];
+            }
+            return cur.end;
+        }
+
+        // All words matching a pattern where '?' stands for any letter
+        List<String> matches(String pattern) {
+            List<String> out = new ArrayList<>();
+            collectMatches(root, pattern, 0, new char[pattern.length()], out);
+            return out;
+        }
+
+        private void collectMatches(Node node, String pattern, int i, char[] buf, List<String> out) {
+            if (i == pattern.length()) {
+                if (node.end) out.add(new String(buf));
+                return;
+            }
+            char ch = pattern.charAt(i);
+            int from = (ch == '?') ? 0 : ch - 'A';
+            int to = (ch == '?') ? 25 : ch - 'A';
+            for (int idx = from; idx <= to; idx++) {
+                if (idx < 0 || idx > 25 || node.next[idx] == null) continue;
+                buf[i] = (char) ('A' + idx);
+                collectMatches(node.next[idx], pattern, i + 1, buf, out);
             }
-            return cur.end;
         }
 
         boolean startsWith(String pref) {